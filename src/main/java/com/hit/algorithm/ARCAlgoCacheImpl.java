@@ -0,0 +1,294 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Adaptive Replacement Cache. Pages used once are kept in T1 and pages used more than once in T2, each in
+ * least recently used order. The keys of pages replaced from T1 and T2 are remembered in the ghost lists B1 and B2,
+ * up to the capacity of the cache, without their values.
+ *
+ * The target size p of T1 tunes itself: putting a key which was recently replaced from T1 (found in B1) means T1
+ * should have been larger, so p grows, and a key found in B2 means T2 should have been larger, so p shrinks.
+ * A replacement takes the least recently used page of T1 while T1 is above its target, and of T2 otherwise,
+ * so the cache follows the workload between recency and frequency. All operations are O(1).
+ */
+public class ARCAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private Map<K, V> recentPages;								//T1, in insertion order
+	private Map<K, V> frequentPages;							//T2, in access order
+	private Set<K> recentGhosts;								//B1
+	private Set<K> frequentGhosts;								//B2
+	private int targetRecentSize;								//p
+	private int capacity;
+	private StatsCounter statsCounter;							//Null unless statistics are recorded
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public ARCAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	public ARCAlgoCacheImpl(int size)
+	{
+		this(size, false);
+	}
+
+	//recordStats - whether to count hits, misses and evictions for getStats
+	public ARCAlgoCacheImpl(int size, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		recentPages = new LinkedHashMap<>(capacity);
+		frequentPages = new LinkedHashMap<>(capacity, 0.75f, true);
+		recentGhosts = new LinkedHashSet<>(capacity);
+		frequentGhosts = new LinkedHashSet<>(capacity);
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(K key:keys)
+		{
+			valuesToReturn.add(getValue(key));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of getElement, which writes the values into the given array
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+
+	//Returns the value of a single key, or null if it is not in the memory. A page used again moves to the top of T2.
+	private V getValue(K key)
+	{
+		V valueOfKey = frequentPages.get(key);
+
+		if(valueOfKey == null && (valueOfKey = recentPages.remove(key)) != null)
+			frequentPages.put(key, valueOfKey);
+
+		if(statsCounter != null)
+		{
+			if(valueOfKey != null)
+				statsCounter.recordHit();
+			else
+				statsCounter.recordMiss();
+		}
+
+		return valueOfKey;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());			//Values which have been eliminated
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of putElement, which writes the replaced values into the given array
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+
+	//Puts a single key, and returns the value of the page it replaced or null if there was no need to replace
+	private V putValue(K currentKey, V currentValue)
+	{
+		V currentValueToReplace = null;
+
+		if(recentPages.remove(currentKey) != null || frequentPages.containsKey(currentKey))	//In memory: update it and move it to the top of T2
+			frequentPages.put(currentKey, currentValue);
+		else if(recentGhosts.remove(currentKey))						//Replaced from T1 too early, give T1 more room
+		{
+			targetRecentSize = Math.min(capacity, targetRecentSize + Math.max(1, frequentGhosts.size() / (recentGhosts.size() + 1)));
+			currentValueToReplace = replaceIfFull(false);
+			frequentPages.put(currentKey, currentValue);
+		}
+		else if(frequentGhosts.remove(currentKey))						//Replaced from T2 too early, give T2 more room
+		{
+			targetRecentSize = Math.max(0, targetRecentSize - Math.max(1, recentGhosts.size() / (frequentGhosts.size() + 1)));
+			currentValueToReplace = replaceIfFull(true);
+			frequentPages.put(currentKey, currentValue);
+		}
+		else															//A new key
+		{
+			if(recentPages.size() + recentGhosts.size() >= capacity)	//T1 and B1 together are limited to the capacity
+			{
+				if(recentPages.size() < capacity)
+				{
+					removeEldest(recentGhosts);
+					currentValueToReplace = replaceIfFull(false);
+				}
+				else													//T1 holds all the memory, its page is forgotten entirely
+				{
+					currentValueToReplace = removeEldest(recentPages).getValue();
+
+					if(statsCounter != null)
+						statsCounter.recordEviction();
+				}
+			}
+			else
+			{
+				if(recentPages.size() + frequentPages.size() + recentGhosts.size() + frequentGhosts.size() >= 2 * capacity)
+					removeEldest(frequentGhosts);
+
+				currentValueToReplace = replaceIfFull(false);
+			}
+
+			recentPages.put(currentKey, currentValue);
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return currentValueToReplace;
+	}
+
+	/*
+	 * Replaces a page if the memory is full, remembering its key in the ghost list of where it was taken from.
+	 * T1 gives the page while it is larger than its target (or as large as it, when the key being put was found in B2).
+	 * Parameters:
+	 * foundInFrequentGhosts - whether the key being put was found in B2
+	 * Returns:
+	 * the value of the page which was replaced, or null if the memory is not full
+	 */
+	private V replaceIfFull(boolean foundInFrequentGhosts)
+	{
+		Map.Entry<K, V> replacedPage;
+
+		if(recentPages.size() + frequentPages.size() < capacity)
+			return null;
+
+		if(!recentPages.isEmpty() && (frequentPages.isEmpty() || recentPages.size() > targetRecentSize
+				|| (foundInFrequentGhosts && recentPages.size() == targetRecentSize)))
+		{
+			replacedPage = removeEldest(recentPages);
+			recentGhosts.add(replacedPage.getKey());
+		}
+		else
+		{
+			replacedPage = removeEldest(frequentPages);
+			frequentGhosts.add(replacedPage.getKey());
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordEviction();
+
+		return replacedPage.getValue();
+	}
+
+	private static <K, V> Map.Entry<K, V> removeEldest(Map<K, V> pages)
+	{
+		Iterator<Map.Entry<K, V>> eldest = pages.entrySet().iterator();
+		Map.Entry<K, V> entry = eldest.next();
+
+		eldest.remove();
+
+		return entry;
+	}
+
+	private static <K> void removeEldest(Set<K> ghosts)
+	{
+		Iterator<K> eldest = ghosts.iterator();
+
+		eldest.next();
+		eldest.remove();
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		for(K key:keys)
+		{
+			removeKey(key);
+		}
+	}
+
+	@Override
+	public void removeElement(K[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			removeKey(keys[i]);
+		}
+	}
+
+	//A removed key is not remembered as a ghost, putting it again does not tell anything about the target size
+	private void removeKey(K key)
+	{
+		if((recentPages.remove(key) != null || frequentPages.remove(key) != null) && statsCounter != null)
+			statsCounter.recordRemove();
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(recentPages.size() + frequentPages.size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(recentPages.size() + frequentPages.size());
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ARCAlgoCacheImpl [T1 = " + recentPages + ", T2 = " + frequentPages + ", capacity=" + capacity + ", p=" + targetRecentSize
+				+ "]    [ghosts B1: " + recentGhosts + ", B2: " + frequentGhosts + "]";
+	}
+}
@@ -0,0 +1,331 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+ * A cache which picks its algorithm by itself, and changes it when the workload changes.
+ * Next to the live cache it runs a shadow cache of every candidate algorithm, which keeps keys only and sees a hashed sample
+ * of the keys, scaled down to the sampled share of the capacity, so every shadow sees what a full cache of its algorithm would.
+ * A key is either always sampled or never, so the shadows see whole reuse patterns rather than random accesses.
+ *
+ * After every epoch of sampled gets the shadows are scored by their hits, with older epochs counting half as much each time,
+ * and when another algorithm scores clearly higher than the live one, the pages move to a new cache of that algorithm,
+ * from the least recently used one. With the default sample of 1/64 of the keys, the shadows cost a few percent of the work.
+ *
+ * Example: new AdaptiveAlgoCacheImpl<Integer, String>(100000)
+ */
+public class AdaptiveAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private static final double DEFAULT_SAMPLE_RATE = 1.0 / 64;
+	private static final int MIN_SHADOW_SIZE = 64;							//Smaller caches are sampled more, up to fully
+	private static final int SAMPLE_RANGE = 1 << 16;
+	private static final int SHADOW_PAGES_PER_EPOCH = 8;
+	private static final double SWITCH_MARGIN = 1.05;						//A candidate has to score 5% more than the live algorithm
+	private static final Object PRESENT = Boolean.TRUE;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	private List<String> algorithmNames;
+	private List<IntFunction<? extends IAlgoCache<K, Object>>> algorithms;
+	private List<IAlgoCache<K, Object>> shadows = new ArrayList<>();
+	private long[] epochHits;
+	private double[] scores;
+	private int liveAlgorithm;
+	private IAlgoCache<K, Object> live;										//Its values are the CacheEntry objects of entries
+	private LinkedHashMap<K, CacheEntry<K, V>> entries;						//In access order, to move the pages in recency order
+	private int capacity;
+	private int sampleThreshold;
+	private int epochLength;
+	private int epochGets;
+	private int switches;
+	private StatsCounter statsCounter;										//Null unless statistics are recorded
+
+	//Chooses between LRU, Second Chance and MFU, starting with LRU
+	public AdaptiveAlgoCacheImpl(int size)
+	{
+		this(size, false);
+	}
+
+	//recordStats - whether to count hits, misses and evictions for getStats
+	public AdaptiveAlgoCacheImpl(int size, boolean recordStats)
+	{
+		this(size, defaultAlgorithms(), DEFAULT_SAMPLE_RATE, recordStats);
+	}
+
+	/*
+	 * Parameters:
+	 * size - number of pages
+	 * algorithms - names and constructors of the candidate algorithms, the first one is used until the shadows prefer another
+	 * sampleRate - share of the keys the shadows see, raised for small caches so every shadow has at least 64 pages
+	 * recordStats - whether to count hits, misses and evictions for getStats
+	 */
+	public AdaptiveAlgoCacheImpl(int size, Map<String, IntFunction<? extends IAlgoCache<K, Object>>> algorithms, double sampleRate, boolean recordStats)
+	{
+		int shadowSize;
+
+		if(algorithms.isEmpty())
+			throw new IllegalArgumentException("No algorithm to choose from");
+
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		this.capacity = (size > 0) ? size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		sampleRate = Math.min(1, Math.max(sampleRate, (double) MIN_SHADOW_SIZE / capacity));
+		sampleThreshold = (int) Math.ceil(sampleRate * SAMPLE_RANGE);
+		shadowSize = Math.max(1, (int) Math.round(capacity * (double) sampleThreshold / SAMPLE_RANGE));
+		epochLength = shadowSize * SHADOW_PAGES_PER_EPOCH;
+		this.algorithmNames = new ArrayList<>(algorithms.keySet());
+		this.algorithms = new ArrayList<>(algorithms.values());
+
+		for(IntFunction<? extends IAlgoCache<K, Object>> algorithm:this.algorithms)
+		{
+			shadows.add(algorithm.apply(shadowSize));
+		}
+
+		epochHits = new long[shadows.size()];
+		scores = new double[shadows.size()];
+		live = this.algorithms.get(0).apply(capacity);
+		entries = new LinkedHashMap<>(capacity, 0.75f, true);
+	}
+
+	private static <K> Map<String, IntFunction<? extends IAlgoCache<K, Object>>> defaultAlgorithms()
+	{
+		Map<String, IntFunction<? extends IAlgoCache<K, Object>>> algorithms = new LinkedHashMap<>();
+
+		algorithms.put("LRU", LRUAlgoCacheImpl::new);
+		algorithms.put("SECOND_CHANCE", SecondChanceAlgoCacheImpl::new);
+		algorithms.put("MFU", MFUAlgoCacheImpl::new);
+
+		return algorithms;
+	}
+
+	//Whether the shadows see the key
+	private boolean isSampled(K key)
+	{
+		return key != null && (FrequencySketch.spread(key.hashCode()) & (SAMPLE_RANGE - 1)) < sampleThreshold;
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		K key;
+
+		for(Object entry:live.getElement(keys))
+		{
+			key = keysIterator.next();
+
+			if(entry != null)
+			{
+				entries.get(key);										//Only moves it to the end
+				valuesToReturn.add(((CacheEntry<K, V>) entry).getValue());
+
+				if(statsCounter != null)
+					statsCounter.recordHit();
+			}
+			else
+			{
+				valuesToReturn.add(null);
+
+				if(statsCounter != null)
+					statsCounter.recordMiss();
+			}
+
+			if(isSampled(key))
+				getInShadows(key);
+		}
+
+		return valuesToReturn;
+	}
+
+	private void getInShadows(K key)
+	{
+		List<K> keys = Collections.singletonList(key);
+
+		for(int i = 0; i < shadows.size(); i++)
+		{
+			if(shadows.get(i).getElement(keys).get(0) != null)
+				epochHits[i]++;
+		}
+
+		if(++epochGets == epochLength)
+			endEpoch();
+	}
+
+	//Scores the shadows, and moves the pages to the best algorithm if it is clearly better than the live one
+	private void endEpoch()
+	{
+		int best = liveAlgorithm;
+
+		for(int i = 0; i < scores.length; i++)
+		{
+			scores[i] = scores[i] / 2 + epochHits[i];
+			epochHits[i] = 0;
+		}
+
+		for(int i = 0; i < scores.length; i++)							//Only once all are updated, the live score included
+		{
+			if(scores[i] > scores[best])
+				best = i;
+		}
+
+		epochGets = 0;
+
+		if(best != liveAlgorithm && scores[best] > scores[liveAlgorithm] * SWITCH_MARGIN)
+			switchTo(best);
+	}
+
+	//Moves the pages to a new cache of the given algorithm, from the least recently used one, without replacing any
+	private void switchTo(int algorithm)
+	{
+		IAlgoCache<K, Object> newLive = algorithms.get(algorithm).apply(capacity);
+
+		for(Map.Entry<K, CacheEntry<K, V>> entry:entries.entrySet())
+		{
+			newLive.putElement(Collections.singletonList(entry.getKey()), Collections.singletonList(entry.getValue()));
+		}
+
+		live = newLive;
+		liveAlgorithm = algorithm;
+		switches++;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+		K key;
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			key = keysIterator.next();
+			valuesToReturn.add(putValue(key, valuesIterator.next()));
+
+			if(isSampled(key))
+			{
+				for(IAlgoCache<K, Object> shadow:shadows)
+				{
+					shadow.putElement(Collections.singletonList(key), Collections.singletonList(PRESENT));
+				}
+			}
+		}
+
+		return valuesToReturn;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V putValue(K key, V value)
+	{
+		CacheEntry<K, V> entry = entries.get(key);
+		CacheEntry<K, V> replacedEntry;
+		List<Object> replacedEntries = new ArrayList<>();
+		V replacedValue = null;
+
+		if(entry != null)
+			entry.setValue(value);
+		else
+		{
+			entry = new CacheEntry<>(key, value);
+			entries.put(key, entry);
+		}
+
+		live.putElement(Collections.singletonList(key), Collections.singletonList(entry), replacedEntries);
+
+		for(Object replaced:replacedEntries)
+		{
+			replacedEntry = (CacheEntry<K, V>) replaced;
+			entries.remove(replacedEntry.getKey());
+
+			if(replacedValue == null)
+				replacedValue = replacedEntry.getValue();
+
+			if(statsCounter != null)
+				statsCounter.recordEviction();
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return replacedValue;
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		live.removeElement(keys);
+
+		for(K key:keys)
+		{
+			if(entries.remove(key) != null && statsCounter != null)
+				statsCounter.recordRemove();
+
+			if(isSampled(key))
+			{
+				for(IAlgoCache<K, Object> shadow:shadows)
+				{
+					shadow.removeElement(Collections.singletonList(key));
+				}
+			}
+		}
+	}
+
+	//Name of the algorithm the cache uses now
+	public String getCurrentAlgorithm()
+	{
+		return algorithmNames.get(liveAlgorithm);
+	}
+
+	//Number of times the cache moved to another algorithm
+	public int getSwitches()
+	{
+		return switches;
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(entries.size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(entries.size());
+	}
+
+	@Override
+	public String toString()
+	{
+		return "AdaptiveAlgoCacheImpl [cache = " + live + ", capacity=" + capacity + "]    [algorithm: " + getCurrentAlgorithm() + ", switches: " + switches + "]";
+	}
+}
@@ -0,0 +1,218 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * An asynchronous front of a cache: getElement, putElement and removeElement return at once with a CompletableFuture,
+ * and the operations run on an executor. Requests wait in a queue, and a single task at a time drains it,
+ * merging consecutive requests of the same kind into one call of the cache, so many small concurrent requests
+ * reach the cache as a few large batches. The results are split back and every future completes with its own part.
+ *
+ * Since only one task uses the cache at a time, and in the order the requests were made, the cache need not be thread-safe:
+ * new AsyncAlgoCache<>(new LRUAlgoCacheImpl<Integer, String>(1000), executor)
+ *
+ * Merged puts are split back by position, so the cache must return one value per pair, which rules out a weighted capacity.
+ * The futures complete on the executor, so callbacks which block should use the async variants of CompletableFuture.
+ */
+public class AsyncAlgoCache<K,V>
+{
+	private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+	private enum Operation
+	{
+		GET,
+		PUT,
+		REMOVE
+	}
+
+	private static final class Request<K, V>
+	{
+		final Operation operation;
+		final List<K> keys;
+		final List<V> values;
+		final CompletableFuture<List<V>> result = new CompletableFuture<>();
+
+		Request(Operation operation, List<K> keys, List<V> values)
+		{
+			this.operation = operation;
+			this.keys = keys;
+			this.values = values;
+		}
+	}
+
+	private IAlgoCache<K, V> cache;
+	private Executor executor;
+	private int maxBatchSize;
+	private Queue<Request<K, V>> requests = new ConcurrentLinkedQueue<>();
+	private AtomicBoolean drainScheduled = new AtomicBoolean();
+	private Request<K, V> nextRequest;							//Taken from the queue by the last drain, but did not fit in its batch
+
+	//Runs the operations on the common fork join pool
+	public AsyncAlgoCache(IAlgoCache<K, V> cache)
+	{
+		this(cache, ForkJoinPool.commonPool());
+	}
+
+	public AsyncAlgoCache(IAlgoCache<K, V> cache, Executor executor)
+	{
+		this(cache, executor, DEFAULT_MAX_BATCH_SIZE);
+	}
+
+	/*
+	 * Parameters:
+	 * cache - to run the operations on
+	 * executor - runs the operations, for example a virtual thread per task executor
+	 * maxBatchSize - number of keys from which requests are no longer merged into the same call of the cache
+	 */
+	public AsyncAlgoCache(IAlgoCache<K, V> cache, Executor executor, int maxBatchSize)
+	{
+		this.cache = cache;
+		this.executor = executor;
+		this.maxBatchSize = (maxBatchSize > 0) ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+	}
+
+	//Completes with the values of the keys, null for keys which are not in the cache
+	public CompletableFuture<List<V>> getElement(List<K> keys)
+	{
+		return submit(new Request<>(Operation.GET, keys, null));
+	}
+
+	//Completes with the values of the pages which were replaced, null where there was no need to replace
+	public CompletableFuture<List<V>> putElement(List<K> keys, List<V> values)
+	{
+		int pairs = Math.min(keys.size(), values.size());
+
+		return submit(new Request<>(Operation.PUT, keys.subList(0, pairs), values.subList(0, pairs)));
+	}
+
+	public CompletableFuture<Void> removeElement(List<K> keys)
+	{
+		return submit(new Request<K, V>(Operation.REMOVE, keys, null)).thenApply(nothing -> null);
+	}
+
+	private CompletableFuture<List<V>> submit(Request<K, V> request)
+	{
+		requests.add(request);
+		scheduleDrain();
+
+		return request.result;
+	}
+
+	private void scheduleDrain()
+	{
+		if(!drainScheduled.compareAndSet(false, true))			//The running drain takes this request as well
+			return;
+
+		try
+		{
+			executor.execute(this::drain);
+		}
+		catch (RejectedExecutionException e)					//Run it on the calling thread rather than leave the requests waiting
+		{
+			drain();
+		}
+	}
+
+	//Runs all the waiting requests, then lets the next request schedule a new drain
+	private void drain()
+	{
+		do
+		{
+			while (runBatch())
+			{
+			}
+
+			drainScheduled.set(false);
+		} while ((nextRequest != null || !requests.isEmpty()) && drainScheduled.compareAndSet(false, true));
+	}
+
+	/*
+	 * Takes consecutive requests of the same kind, up to the maximal batch size, and runs them as a single call of the cache.
+	 * Returns:
+	 * whether there were requests to run
+	 */
+	private boolean runBatch()
+	{
+		List<Request<K, V>> batch = new ArrayList<>();
+		List<K> keys = new ArrayList<>();
+		List<V> values = new ArrayList<>();
+		List<V> results = null;
+		Request<K, V> request = (nextRequest != null) ? nextRequest : requests.poll();
+		Operation operation;
+		int position = 0;
+
+		nextRequest = null;
+
+		if(request == null)
+			return false;
+
+		operation = request.operation;
+
+		do
+		{
+			batch.add(request);
+			keys.addAll(request.keys);
+
+			if(operation == Operation.PUT)
+				values.addAll(request.values);
+
+			request = requests.poll();
+		} while (request != null && request.operation == operation && keys.size() + request.keys.size() <= maxBatchSize);
+
+		nextRequest = request;
+
+		try
+		{
+			switch (operation)
+			{
+				case GET:
+					results = cache.getElement(keys);
+					break;
+				case PUT:
+					results = cache.putElement(keys, values);
+					break;
+				case REMOVE:
+					cache.removeElement(keys);
+					break;
+			}
+
+			if(results != null && results.size() != keys.size())
+				throw new IllegalStateException("The cache returned " + results.size() + " values for " + keys.size() + " keys");
+		}
+		catch (RuntimeException | Error e)
+		{
+			for(Request<K, V> failedRequest:batch)
+			{
+				failedRequest.result.completeExceptionally(e);
+			}
+
+			return true;
+		}
+
+		for(Request<K, V> completedRequest:batch)
+		{
+			if(results == null)
+				completedRequest.result.complete(null);
+			else
+				completedRequest.result.complete(new ArrayList<>(results.subList(position, position + completedRequest.keys.size())));
+
+			position += completedRequest.keys.size();
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "AsyncAlgoCache [cache = " + cache + ", maxBatchSize=" + maxBatchSize + "]";
+	}
+}
@@ -0,0 +1,156 @@
+package com.hit.algorithm;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/*
+ * Delivers notifications to another listener on a thread of its own, so the thread which removed the page does not wait for it.
+ * Notifications wait in a bounded queue, and the thread takes them in batches, one lock of the queue for the whole batch.
+ * When the listener falls behind and the queue is full, removing pages waits for room rather than dropping notifications
+ * or letting the queue grow without limit. Notifications are delivered in the order the pages were removed.
+ *
+ * An exception thrown by the listener goes to the uncaught exception handler of the thread, and the next notifications are still delivered.
+ * For tests which check the notifications right after an operation, use the listener itself, which is called synchronously.
+ */
+public class AsyncRemovalListener<K,V> implements RemovalListener<K, V>, Closeable
+{
+	private static final RemovalNotification<Object, Object> CLOSE = new RemovalNotification<>(null, null, null);
+	private static final int DEFAULT_QUEUE_SIZE = 1024;
+	private static final int DEFAULT_BATCH_SIZE = 64;
+
+	private RemovalListener<K, V> listener;
+	private BlockingQueue<RemovalNotification<K, V>> queue;
+	private int batchSize;
+	private Thread deliveryThread;
+	private volatile boolean closed;
+
+	public AsyncRemovalListener(RemovalListener<K, V> listener)
+	{
+		this(listener, DEFAULT_QUEUE_SIZE, DEFAULT_BATCH_SIZE);
+	}
+
+	/*
+	 * Parameters:
+	 * listener - to deliver the notifications to
+	 * queueSize - number of notifications which may wait for delivery before removing pages waits
+	 * batchSize - maximal number of notifications taken from the queue at once
+	 */
+	public AsyncRemovalListener(RemovalListener<K, V> listener, int queueSize, int batchSize)
+	{
+		this.listener = listener;
+		this.queue = new ArrayBlockingQueue<>((queueSize > 0) ? queueSize : DEFAULT_QUEUE_SIZE);
+		this.batchSize = (batchSize > 0) ? batchSize : DEFAULT_BATCH_SIZE;
+		deliveryThread = new Thread(this::deliver, "AsyncRemovalListener");
+		deliveryThread.setDaemon(true);
+		deliveryThread.start();
+	}
+
+	//Queues the notification, waiting while the queue is full. After close the notification is delivered on the calling thread.
+	@Override
+	public void onRemoval(RemovalNotification<K, V> notification)
+	{
+		if(closed)
+		{
+			notifyListener(notification);
+			return;
+		}
+
+		try
+		{
+			queue.put(notification);
+		}
+		catch (InterruptedException e)						//Deliver it here rather than lose it
+		{
+			Thread.currentThread().interrupt();
+			notifyListener(notification);
+			return;
+		}
+
+		if(closed)											//Closed while this was queued, after the delivery thread finished
+			deliverQueued();
+	}
+
+	//The loop of the delivery thread
+	private void deliver()
+	{
+		List<RemovalNotification<K, V>> batch = new ArrayList<>(batchSize);
+		boolean closing = false;
+
+		try
+		{
+			while(!closing)
+			{
+				batch.add(queue.take());
+				queue.drainTo(batch, batchSize - 1);
+
+				for(RemovalNotification<K, V> notification:batch)
+				{
+					if(notification == CLOSE)				//The rest of the batch was queued just before close, deliver it too
+						closing = true;
+					else
+						notifyListener(notification);
+				}
+
+				batch.clear();
+			}
+		}
+		catch (InterruptedException e)
+		{
+		}
+	}
+
+	private void deliverQueued()
+	{
+		RemovalNotification<K, V> notification;
+
+		while((notification = queue.poll()) != null)
+		{
+			if(notification != CLOSE)
+				notifyListener(notification);
+		}
+	}
+
+	private void notifyListener(RemovalNotification<K, V> notification)
+	{
+		try
+		{
+			listener.onRemoval(notification);
+		}
+		catch (RuntimeException e)
+		{
+			Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+		}
+	}
+
+	//Delivers the notifications which are still queued and stops the thread
+	@SuppressWarnings("unchecked")
+	@Override
+	public void close()
+	{
+		if(closed)
+			return;
+
+		closed = true;
+
+		try
+		{
+			queue.put((RemovalNotification<K, V>) (RemovalNotification<?, ?>) CLOSE);
+			deliveryThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		deliverQueued();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "AsyncRemovalListener [listener = " + listener + ", queued=" + queue.size() + ", batchSize=" + batchSize + "]";
+	}
+}
@@ -0,0 +1,38 @@
+package com.hit.algorithm;
+
+/*
+ * A value together with its key. Caches which are built on top of another cache keep entries as the values
+ * of the inner cache, so when the inner cache replaces a page they know which key it belonged to.
+ */
+public final class CacheEntry<K,V>
+{
+	private final K key;
+	private V value;
+
+	public CacheEntry(K key, V value)
+	{
+		this.key = key;
+		this.value = value;
+	}
+
+	public K getKey()
+	{
+		return key;
+	}
+
+	public V getValue()
+	{
+		return value;
+	}
+
+	public void setValue(V value)
+	{
+		this.value = value;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.valueOf(value);
+	}
+}
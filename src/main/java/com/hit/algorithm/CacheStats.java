@@ -0,0 +1,76 @@
+package com.hit.algorithm;
+
+/*
+ * Snapshot of the statistics of a cache at a point in time.
+ * Hits and misses count keys looked up by getElement, puts and removes count keys given to
+ * putElement and removeElement (removes only if the key was present), and evictions count pages replaced.
+ */
+public final class CacheStats
+{
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long puts;
+	private final long removes;
+	private final long size;
+
+	public CacheStats(long hits, long misses, long evictions, long puts, long removes, long size)
+	{
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.puts = puts;
+		this.removes = removes;
+		this.size = size;
+	}
+
+	public long getHits()
+	{
+		return hits;
+	}
+
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	public long getEvictions()
+	{
+		return evictions;
+	}
+
+	public long getPuts()
+	{
+		return puts;
+	}
+
+	public long getRemoves()
+	{
+		return removes;
+	}
+
+	//Number of pages in the cache when the snapshot was taken
+	public long getSize()
+	{
+		return size;
+	}
+
+	public double getHitRatio()
+	{
+		return (hits + misses == 0) ? 0 : (double) hits / (hits + misses);
+	}
+
+	//Sums the counters of both snapshots, for example of the segments of a cache
+	public CacheStats plus(CacheStats other)
+	{
+		return new CacheStats(hits + other.hits, misses + other.misses, evictions + other.evictions,
+				puts + other.puts, removes + other.removes, size + other.size);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CacheStats [hits = " + hits + ", misses = " + misses + ", hitRatio = " + String.format("%.4f", getHitRatio())
+				+ ", evictions = " + evictions + ", puts = " + puts + ", removes = " + removes + ", size = " + size + "]";
+	}
+}
@@ -0,0 +1,281 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Second chance paging implemented as a CLOCK: the pages live in a fixed ring of slots, the reference bits in a bit set,
+ * and a persistent hand points at the oldest page. Replacing a page never moves the other pages, so once the cache is
+ * warm getting and putting pages allocates nothing besides the returned lists, and nothing at all through the bulk array methods.
+ */
+public class ClockAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private SlotIndex<K> index;
+	private Object[] values;
+	private BitSet referenceBit;
+	private int[] freeSlots;
+	private int freeSlotsCount;
+	private int hand;
+	private int capacity;
+	private StatsCounter statsCounter;							//Null unless statistics are recorded
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public ClockAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	public ClockAlgoCacheImpl(int size)
+	{
+		this(size, false);
+	}
+
+	//recordStats - whether to count hits, misses and evictions for getStats
+	public ClockAlgoCacheImpl(int size, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		index = new SlotIndex<>(capacity);
+		values = new Object[capacity];
+		referenceBit = new BitSet(capacity);
+		freeSlots = new int[capacity];
+
+		for(int slot = capacity - 1; slot >= 0; slot--)		//Slots are handed out from the first one, in the same order the hand goes over them
+		{
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(K key:keys)
+		{
+			valuesToReturn.add(getValue(key));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of getElement, which writes the values into the given array and allocates nothing
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+
+	//Returns the value of a single key, or null if it is not in the memory
+	private V getValue(K key)
+	{
+		int slot = index.find(key);
+
+		if(slot >= 0)								//If the key is in the memory already
+		{
+			referenceBit.set(slot);					//Give it a second chance because we addressed it
+
+			if(statsCounter != null)
+				statsCounter.recordHit();
+
+			return valueAt(slot);
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordMiss();
+
+		return null;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());			//Values which have been eliminated
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of putElement, which writes the replaced values into the given array and allocates nothing
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+
+	//Puts a single key, and returns the value of the page it replaced or null if there was no need to replace
+	private V putValue(K currentKey, V currentValue)
+	{
+		V currentValueToReplace = null;
+		int slot = index.find(currentKey);
+
+		if(slot >= 0)												//The key is present, update it and mark it as addressed
+		{
+			this.values[slot] = currentValue;
+			referenceBit.set(slot);
+		}
+		else
+		{
+			if(freeSlotsCount > 0)
+				slot = freeSlots[--freeSlotsCount];
+			else													//Memory is full and a page needs to be replaced
+			{
+				slot = findSlotToReplace();
+				currentValueToReplace = valueAt(slot);
+				index.remove(index.keyAt(slot));
+
+				if(statsCounter != null)
+					statsCounter.recordEviction();
+			}
+
+			index.insert(currentKey, slot);
+			this.values[slot] = currentValue;
+			referenceBit.clear(slot);
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return currentValueToReplace;
+	}
+
+	/*
+	 * Advances the hand to the first page which was not addressed since the hand last passed it,
+	 * clearing the reference bits of the pages it skips as their second chance.
+	 * Only called when memory is full, so every slot holds a page.
+	 * Returns:
+	 * slot of the page to be replaced
+	 */
+	private int findSlotToReplace()
+	{
+		int victim = referenceBit.nextClearBit(hand);
+
+		if(victim >= capacity)						//Every page from the hand to the end was addressed, continue from the start
+		{
+			referenceBit.clear(hand, capacity);
+			victim = referenceBit.nextClearBit(0);	//Found at the latest where the hand started, since it was just cleared
+			referenceBit.clear(0, victim);
+		}
+		else
+			referenceBit.clear(hand, victim);
+
+		hand = (victim + 1 == capacity) ? 0 : victim + 1;
+
+		return victim;
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		for(K key:keys)
+		{
+			removeKey(key);
+		}
+	}
+
+	@Override
+	public void removeElement(K[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			removeKey(keys[i]);
+		}
+	}
+
+	private void removeKey(K key)
+	{
+		int slot = index.remove(key);
+
+		if(slot >= 0)
+		{
+			values[slot] = null;
+			referenceBit.clear(slot);
+			freeSlots[freeSlotsCount++] = slot;
+
+			if(statsCounter != null)
+				statsCounter.recordRemove();
+		}
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(capacity - freeSlotsCount);
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(capacity - freeSlotsCount);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int slot)
+	{
+		return (V) values[slot];
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<K, V> cache = new LinkedHashMap<>();
+		Map<K, Boolean> status = new LinkedHashMap<>();
+		int slot;
+
+		for(int i = 0; i < capacity; i++)				//Print the pages in the order the hand will go over them
+		{
+			slot = (hand + i) % capacity;
+
+			if(index.keyAt(slot) != null)
+			{
+				cache.put(index.keyAt(slot), valueAt(slot));
+				status.put(index.keyAt(slot), referenceBit.get(slot));
+			}
+		}
+
+		return "ClockAlgoCacheImpl [cache = " + cache + ", capacity=" + capacity + "]    [items status: " + status + "]";
+	}
+}
@@ -0,0 +1,16 @@
+package com.hit.algorithm;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Writes keys or values to a binary form and reads them back, for caches which are sent over the network or saved to a file.
+ * Implementations for the common types are in Codecs.
+ */
+public interface Codec<T>
+{
+	//Writes the value at the position of the buffer. Throws BufferOverflowException if the buffer is too small, and the caller retries with a larger one.
+	public void write(T value, ByteBuffer buffer);
+
+	//Reads a value written by write from the position of the buffer
+	public T read(ByteBuffer buffer);
+}
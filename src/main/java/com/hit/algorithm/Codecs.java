@@ -0,0 +1,129 @@
+package com.hit.algorithm;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//Codecs of common key and value types. Variable length values are written as an int length followed by their bytes.
+//A length which is negative or longer than the bytes left is rejected with a BufferUnderflowException before anything is allocated.
+public final class Codecs
+{
+	public static final Codec<Integer> INTEGER = new Codec<Integer>()
+	{
+		@Override
+		public void write(Integer value, ByteBuffer buffer)
+		{
+			buffer.putInt(value);
+		}
+
+		@Override
+		public Integer read(ByteBuffer buffer)
+		{
+			return buffer.getInt();
+		}
+	};
+
+	public static final Codec<Long> LONG = new Codec<Long>()
+	{
+		@Override
+		public void write(Long value, ByteBuffer buffer)
+		{
+			buffer.putLong(value);
+		}
+
+		@Override
+		public Long read(ByteBuffer buffer)
+		{
+			return buffer.getLong();
+		}
+	};
+
+	//UTF-8
+	public static final Codec<String> STRING = new Codec<String>()
+	{
+		@Override
+		public void write(String value, ByteBuffer buffer)
+		{
+			BYTES.write(value.getBytes(StandardCharsets.UTF_8), buffer);
+		}
+
+		@Override
+		public String read(ByteBuffer buffer)
+		{
+			int length = buffer.getInt();
+			byte[] bytes;
+			String value;
+
+			if(length < 0 || length > buffer.remaining())
+				throw new BufferUnderflowException();
+
+			if(buffer.hasArray())											//Decode in place instead of copying the bytes out first
+			{
+				value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+				buffer.position(buffer.position() + length);
+
+				return value;
+			}
+
+			bytes = new byte[length];
+			buffer.get(bytes);
+
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	public static final Codec<byte[]> BYTES = new Codec<byte[]>()
+	{
+		@Override
+		public void write(byte[] value, ByteBuffer buffer)
+		{
+			buffer.putInt(value.length);
+			buffer.put(value);
+		}
+
+		@Override
+		public byte[] read(ByteBuffer buffer)
+		{
+			int length = buffer.getInt();
+			byte[] value;
+
+			if(length < 0 || length > buffer.remaining())
+				throw new BufferUnderflowException();
+
+			value = new byte[length];
+			buffer.get(value);
+
+			return value;
+		}
+	};
+
+	//Writes the remaining bytes of the buffer without moving its position, and reads them back into a heap buffer
+	public static final Codec<ByteBuffer> BYTE_BUFFER = new Codec<ByteBuffer>()
+	{
+		@Override
+		public void write(ByteBuffer value, ByteBuffer buffer)
+		{
+			buffer.putInt(value.remaining());
+			buffer.put(value.duplicate());
+		}
+
+		@Override
+		public ByteBuffer read(ByteBuffer buffer)
+		{
+			int length = buffer.getInt();
+			ByteBuffer value;
+
+			if(length < 0 || length > buffer.remaining())
+				throw new BufferUnderflowException();
+
+			value = ByteBuffer.allocate(length);
+			buffer.get(value.array());
+
+			return value;
+		}
+	};
+
+	private Codecs()
+	{
+	}
+}
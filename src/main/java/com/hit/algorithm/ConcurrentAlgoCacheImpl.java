@@ -0,0 +1,398 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/*
+ * A cache which can be shared between threads. The key space is split by hash into independent segments,
+ * each one a regular cache of the chosen algorithm guarded by its own lock, so requests for keys of
+ * different segments never wait for each other.
+ *
+ * The algorithm is applied per segment: a replacement picks the least recently used (or most frequently used,
+ * or the second chance victim) among the keys of the full segment only, not among all the keys of the cache.
+ * With keys spread evenly, each segment sees a random sample of the traffic and the victims are close to
+ * the ones a single cache would choose, but a segment may replace a page while another segment still holds
+ * older or colder ones. Using fewer segments gets closer to the global order at the cost of more contention.
+ *
+ * Example: new ConcurrentAlgoCacheImpl<Integer, String>(1000, LRUAlgoCacheImpl::new)
+ */
+public class ConcurrentAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private IAlgoCache<K, V>[] segments;
+	private ReentrantLock[] locks;
+	private int segmentShift;
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+	private static final int MIN_SEGMENT_SIZE = 64;					//Smaller segments replace pages too far from the global order
+
+	public ConcurrentAlgoCacheImpl(IntFunction<? extends IAlgoCache<K, V>> algorithm)
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE, algorithm);
+	}
+
+	//Four segments per processor, but as few as it takes for every segment to hold at least 64 pages
+	public ConcurrentAlgoCacheImpl(int size, IntFunction<? extends IAlgoCache<K, V>> algorithm)
+	{
+		this(size, Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, size / MIN_SEGMENT_SIZE)), algorithm);
+	}
+
+	/*
+	 * Parameters:
+	 * size - total number of pages in all the segments together
+	 * concurrencyLevel - expected number of threads, rounded to a power of two segments but never more segments than pages
+	 * algorithm - creates the cache of a single segment given its capacity, for example MFUAlgoCacheImpl::new
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ConcurrentAlgoCacheImpl(int size, int concurrencyLevel, IntFunction<? extends IAlgoCache<K, V>> algorithm)
+	{
+		int segmentsCount;
+
+		this.capacity = (size > 0) ? size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		segmentsCount = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, capacity)));
+
+		if(segmentsCount < concurrencyLevel && segmentsCount * 2 <= capacity)
+			segmentsCount *= 2;											//Round the concurrency level up, as long as every segment gets a page
+
+		segments = new IAlgoCache[segmentsCount];
+		locks = new ReentrantLock[segmentsCount];
+		segmentShift = 32 - Integer.numberOfTrailingZeros(segmentsCount);
+
+		for(int i = 0; i < segmentsCount; i++)						//Spread the pages that don't divide evenly over the first segments
+		{
+			segments[i] = algorithm.apply(capacity / segmentsCount + (i < capacity % segmentsCount ? 1 : 0));
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	//Takes the high bits of the hash, since the low ones pick the slot inside the segment: keys of a segment sharing them would cluster
+	private int segmentFor(K key)
+	{
+		int hash = key.hashCode() * 0x9E3779B9;
+
+		return (int) ((hash & 0xFFFFFFFFL) >>> segmentShift);			//As a long, so a single segment shifts all 32 bits out
+	}
+
+	/*
+	 * Orders the positions of the given keys by segment, so every segment is locked once per request.
+	 * Parameters:
+	 * keys - of the request
+	 * positions - filled with the positions of the keys, grouped by segment
+	 * Returns:
+	 * for every segment, where its group starts in positions (the last item is the number of keys)
+	 */
+	private int[] groupBySegment(List<K> keys, int[] positions)
+	{
+		int[] groupStart = new int[segments.length + 1];
+		int[] segmentOfKey = new int[positions.length];
+		int[] nextFree;
+
+		for(int i = 0; i < positions.length; i++)
+		{
+			segmentOfKey[i] = segmentFor(keys.get(i));
+			groupStart[segmentOfKey[i] + 1]++;
+		}
+
+		for(int segment = 0; segment < segments.length; segment++)
+		{
+			groupStart[segment + 1] += groupStart[segment];
+		}
+
+		nextFree = Arrays.copyOf(groupStart, segments.length);
+
+		for(int i = 0; i < positions.length; i++)
+		{
+			positions[nextFree[segmentOfKey[i]]++] = i;
+		}
+
+		return groupStart;
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<K> keysList;
+		int[] positions, groupStart;
+		Object[] valuesToReturn;
+		List<K> segmentKeys = new ArrayList<>();
+		List<V> segmentValues;
+		int singleSegment;
+
+		if(keys.size() == 1)											//A single key goes straight to its segment, without going over all of them
+		{
+			singleSegment = segmentFor(keys.get(0));
+			locks[singleSegment].lock();
+			try
+			{
+				return segments[singleSegment].getElement(keys);
+			}
+			finally
+			{
+				locks[singleSegment].unlock();
+			}
+		}
+
+		keysList = asRandomAccess(keys);
+		positions = new int[keysList.size()];
+		groupStart = groupBySegment(keysList, positions);
+		valuesToReturn = new Object[positions.length];
+
+		for(int segment = 0; segment < segments.length; segment++)
+		{
+			if(groupStart[segment] == groupStart[segment + 1])
+				continue;
+
+			segmentKeys.clear();
+
+			for(int i = groupStart[segment]; i < groupStart[segment + 1]; i++)
+			{
+				segmentKeys.add(keysList.get(positions[i]));
+			}
+
+			locks[segment].lock();
+			try
+			{
+				segmentValues = segments[segment].getElement(segmentKeys);
+			}
+			finally
+			{
+				locks[segment].unlock();
+			}
+
+			for(int i = groupStart[segment]; i < groupStart[segment + 1]; i++)		//Put each value back at the position of its key
+			{
+				valuesToReturn[positions[i]] = segmentValues.get(i - groupStart[segment]);
+			}
+		}
+
+		return asList(valuesToReturn);
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		return putElement(keys, values, null, false);
+	}
+
+	//Collects the replaced values of every segment, grouped by segment rather than in the order of the keys
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values, List<V> evictedValues)
+	{
+		return putElement(keys, values, evictedValues, false);
+	}
+
+	//Puts each page with low priority in its segment
+	@Override
+	public List<V> putElementWithLowPriority(List<K> keys, List<V> values)
+	{
+		return putElement(keys, values, null, true);
+	}
+
+	private List<V> putElement(List<K> keys, List<V> values, List<V> evictedValues, boolean lowPriority)
+	{
+		List<K> keysList;
+		List<V> valuesList;
+		int pairsCount, singleSegment;
+		int[] positions, groupStart;
+		Object[] valuesToReturn;
+		List<K> segmentKeys = new ArrayList<>();
+		List<V> segmentValues = new ArrayList<>();
+		List<V> replacedValues;
+
+		if(keys.size() == 1 && values.size() == 1)						//A single page goes straight to its segment
+		{
+			singleSegment = segmentFor(keys.get(0));
+			locks[singleSegment].lock();
+			try
+			{
+				if(lowPriority)
+					return segments[singleSegment].putElementWithLowPriority(keys, values);
+				else if(evictedValues != null)
+					return segments[singleSegment].putElement(keys, values, evictedValues);
+				else
+					return segments[singleSegment].putElement(keys, values);
+			}
+			finally
+			{
+				locks[singleSegment].unlock();
+			}
+		}
+
+		keysList = asRandomAccess(keys);
+		valuesList = asRandomAccess(values);
+		pairsCount = Math.min(keysList.size(), valuesList.size());
+		positions = new int[pairsCount];
+		groupStart = groupBySegment(keysList.subList(0, pairsCount), positions);
+		valuesToReturn = new Object[pairsCount];
+
+		for(int segment = 0; segment < segments.length; segment++)
+		{
+			if(groupStart[segment] == groupStart[segment + 1])
+				continue;
+
+			segmentKeys.clear();
+			segmentValues.clear();
+
+			for(int i = groupStart[segment]; i < groupStart[segment + 1]; i++)	//Pairs keep their relative order inside a segment
+			{
+				segmentKeys.add(keysList.get(positions[i]));
+				segmentValues.add(valuesList.get(positions[i]));
+			}
+
+			locks[segment].lock();
+			try
+			{
+				if(lowPriority)
+					replacedValues = segments[segment].putElementWithLowPriority(segmentKeys, segmentValues);
+				else if(evictedValues != null)
+					replacedValues = segments[segment].putElement(segmentKeys, segmentValues, evictedValues);
+				else
+					replacedValues = segments[segment].putElement(segmentKeys, segmentValues);
+			}
+			finally
+			{
+				locks[segment].unlock();
+			}
+
+			for(int i = groupStart[segment]; i < groupStart[segment + 1]; i++)
+			{
+				valuesToReturn[positions[i]] = replacedValues.get(i - groupStart[segment]);
+			}
+		}
+
+		return asList(valuesToReturn);
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		List<K> keysList = asRandomAccess(keys);
+		int[] positions = new int[keysList.size()];
+		int[] groupStart = groupBySegment(keysList, positions);
+		List<K> segmentKeys = new ArrayList<>();
+
+		for(int segment = 0; segment < segments.length; segment++)
+		{
+			if(groupStart[segment] == groupStart[segment + 1])
+				continue;
+
+			segmentKeys.clear();
+
+			for(int i = groupStart[segment]; i < groupStart[segment + 1]; i++)
+			{
+				segmentKeys.add(keysList.get(positions[i]));
+			}
+
+			locks[segment].lock();
+			try
+			{
+				segments[segment].removeElement(segmentKeys);
+			}
+			finally
+			{
+				locks[segment].unlock();
+			}
+		}
+	}
+
+	/*
+	 * Sums the statistics of all the segments, which have to be created with statistics recorded,
+	 * for example new ConcurrentAlgoCacheImpl<Integer, String>(1000, size -> new LRUAlgoCacheImpl<>(size, true))
+	 */
+	@Override
+	public CacheStats getStats()
+	{
+		return sumStats(false);
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return sumStats(true);
+	}
+
+	private CacheStats sumStats(boolean reset)
+	{
+		CacheStats total = new CacheStats(0, 0, 0, 0, 0, 0);
+		CacheStats segmentStats;
+
+		for(int segment = 0; segment < segments.length; segment++)
+		{
+			locks[segment].lock();
+			try
+			{
+				segmentStats = reset ? segments[segment].getStatsAndReset() : segments[segment].getStats();
+			}
+			finally
+			{
+				locks[segment].unlock();
+			}
+
+			if(segmentStats == null)
+				return null;
+
+			total = total.plus(segmentStats);
+		}
+
+		return total;
+	}
+
+	//Positional access is used to group the keys, so linked lists are copied once
+	private static <T> List<T> asRandomAccess(List<T> list)
+	{
+		return (list instanceof RandomAccess) ? list : new ArrayList<>(list);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> asList(Object[] values)
+	{
+		return (List<T>) Arrays.asList(values);
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder stringBuilder = new StringBuilder();
+
+		stringBuilder.append("ConcurrentAlgoCacheImpl [capacity = ").append(capacity).append(", segments = ").append(segments.length).append("]");
+
+		for(int segment = 0; segment < segments.length; segment++)
+		{
+			locks[segment].lock();
+			try
+			{
+				stringBuilder.append(System.lineSeparator()).append("    ").append(segments[segment]);
+			}
+			finally
+			{
+				locks[segment].unlock();
+			}
+		}
+
+		return stringBuilder.toString();
+	}
+}
@@ -0,0 +1,286 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/*
+ * A cache whose pages expire a fixed time after they were put, after they were last used, or both.
+ * An expired page is never returned: every getElement and putElement first advances a TimerWheel to the current time
+ * and removes the pages which expired from the chosen algorithm, so there is no sweeper thread, and a put finds
+ * the room freed by expired pages before the algorithm has to replace a live page.
+ * A RemovalListener set with setRemovalListener gets the expired pages, as well as the ones which were evicted, replaced or removed.
+ *
+ * Example: new ExpiringAlgoCacheImpl<Integer, String>(1000, 10, 0, TimeUnit.MINUTES, LRUAlgoCacheImpl::new)
+ */
+public class ExpiringAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	//The value the algorithm keeps for each page: the page itself and when it expires
+	public static final class TimedEntry<K,V>
+	{
+		final K key;
+		V value;
+		long writeTime;
+		long expirationTime;
+		TimedEntry<K, V> previous;								//Links of the timer wheel bucket
+		TimedEntry<K, V> next;
+
+		TimedEntry(K key, V value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.valueOf(value);
+		}
+	}
+
+	private IAlgoCache<K, TimedEntry<K, V>> algorithm;
+	private Map<K, TimedEntry<K, V>> entries;
+	private TimerWheel<K, V> timerWheel;
+	private List<TimedEntry<K, V>> expiredEntries = new ArrayList<>();
+	private List<K> expiredKeys = new ArrayList<>();
+	private long expireAfterWriteNanos;
+	private long expireAfterAccessNanos;
+	private LongSupplier nanoTime;
+	private RemovalListener<K, V> removalListener;				//Null unless set
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	/*
+	 * Parameters:
+	 * size - number of pages
+	 * expireAfterWrite - how long a page lives after it was put, or 0 for no limit
+	 * expireAfterAccess - how long a page lives after it was last got or put, or 0 for no limit
+	 * unit - of both durations
+	 * algorithm - creates the cache which replaces pages when no page expired, for example LRUAlgoCacheImpl::new
+	 */
+	public ExpiringAlgoCacheImpl(int size, long expireAfterWrite, long expireAfterAccess, TimeUnit unit,
+			IntFunction<? extends IAlgoCache<K, TimedEntry<K, V>>> algorithm)
+	{
+		this(size, expireAfterWrite, expireAfterAccess, unit, System::nanoTime, algorithm);
+	}
+
+	//nanoTime - the clock, in nanoseconds
+	public ExpiringAlgoCacheImpl(int size, long expireAfterWrite, long expireAfterAccess, TimeUnit unit, LongSupplier nanoTime,
+			IntFunction<? extends IAlgoCache<K, TimedEntry<K, V>>> algorithm)
+	{
+		this.capacity = (size > 0) ? size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.expireAfterWriteNanos = unit.toNanos(Math.max(0, expireAfterWrite));
+		this.expireAfterAccessNanos = unit.toNanos(Math.max(0, expireAfterAccess));
+		this.nanoTime = nanoTime;
+		this.algorithm = algorithm.apply(capacity);
+		entries = new HashMap<>(capacity);
+		timerWheel = new TimerWheel<>(nanoTime.getAsLong());
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key or it expired
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		long now = nanoTime.getAsLong();
+		List<TimedEntry<K, V>> entriesOfKeys;
+		List<V> valuesToReturn;
+
+		removeExpiredEntries(now);
+		entriesOfKeys = algorithm.getElement(keys);
+		valuesToReturn = new ArrayList<>(entriesOfKeys.size());
+
+		for(TimedEntry<K, V> entry:entriesOfKeys)
+		{
+			if(entry == null)
+				valuesToReturn.add(null);
+			else
+			{
+				if(expireAfterAccessNanos > 0)					//Using the page extends its life
+					schedule(entry, now);
+
+				valuesToReturn.add(entry.value);
+			}
+		}
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced, expired pages are removed without being returned
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		long now = nanoTime.getAsLong();
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		List<TimedEntry<K, V>> replacedEntries = new ArrayList<>();
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+		K currentKey;
+		V previousValue, replacedValue;
+		TimedEntry<K, V> entry;
+
+		removeExpiredEntries(now);
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			currentKey = keysIterator.next();
+			entry = entries.get(currentKey);
+			replacedValue = null;
+			replacedEntries.clear();
+
+			if(entry != null)											//Update the page in place, and let the algorithm know it was used
+			{
+				previousValue = entry.value;
+				entry.value = valuesIterator.next();
+				algorithm.putElement(Collections.singletonList(currentKey), Collections.singletonList(entry), replacedEntries);
+				notifyRemoval(currentKey, previousValue, RemovalCause.REPLACED);
+			}
+			else
+			{
+				entry = new TimedEntry<>(currentKey, valuesIterator.next());
+				entries.put(currentKey, entry);
+				algorithm.putElement(Collections.singletonList(currentKey), Collections.singletonList(entry), replacedEntries);
+			}
+
+			for(TimedEntry<K, V> replacedEntry:replacedEntries)			//A weighted algorithm may replace several, or the page itself if it is too heavy
+			{
+				entries.remove(replacedEntry.key);
+				timerWheel.deschedule(replacedEntry);
+				notifyRemoval(replacedEntry.key, replacedEntry.value, RemovalCause.EVICTED);
+
+				if(replacedValue == null)
+					replacedValue = replacedEntry.value;
+			}
+
+			if(entries.get(currentKey) == entry)
+			{
+				entry.writeTime = now;
+				schedule(entry, now);
+			}
+
+			valuesToReturn.add(replacedValue);
+		}
+
+		return valuesToReturn;
+	}
+
+	//Sets the expiration time of a page which was just written or accessed, and moves it to its bucket in the timer wheel
+	private void schedule(TimedEntry<K, V> entry, long now)
+	{
+		long accessExpiration = now + expireAfterAccessNanos;
+
+		if(expireAfterWriteNanos == 0 && expireAfterAccessNanos == 0)
+			return;
+
+		if(expireAfterWriteNanos == 0)
+			entry.expirationTime = accessExpiration;
+		else
+		{
+			entry.expirationTime = entry.writeTime + expireAfterWriteNanos;
+
+			if(expireAfterAccessNanos > 0 && accessExpiration - entry.expirationTime < 0)
+				entry.expirationTime = accessExpiration;
+		}
+
+		timerWheel.reschedule(entry);
+	}
+
+	//Advances the timer wheel and removes the pages which expired from the algorithm
+	private void removeExpiredEntries(long now)
+	{
+		timerWheel.advance(now, expiredEntries);
+
+		if(expiredEntries.isEmpty())
+			return;
+
+		for(TimedEntry<K, V> entry:expiredEntries)
+		{
+			entries.remove(entry.key);
+			expiredKeys.add(entry.key);
+		}
+
+		algorithm.removeElement(expiredKeys);
+
+		for(TimedEntry<K, V> entry:expiredEntries)
+		{
+			notifyRemoval(entry.key, entry.value, RemovalCause.EXPIRED);
+		}
+
+		expiredEntries.clear();
+		expiredKeys.clear();
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		TimedEntry<K, V> entry;
+
+		algorithm.removeElement(keys);
+
+		for(K key:keys)
+		{
+			entry = entries.remove(key);
+
+			if(entry != null)
+			{
+				timerWheel.deschedule(entry);
+				notifyRemoval(key, entry.value, RemovalCause.EXPLICIT);
+			}
+		}
+	}
+
+	//Sets the listener which gets the pages which leave the cache, on the thread which removed them, or null for none
+	public void setRemovalListener(RemovalListener<K, V> removalListener)
+	{
+		this.removalListener = removalListener;
+	}
+
+	private void notifyRemoval(K key, V value, RemovalCause cause)
+	{
+		if(removalListener != null)
+			removalListener.onRemoval(new RemovalNotification<>(key, value, cause));
+	}
+
+	//Statistics of the algorithm, if it records them. Expired pages count as removed pages.
+	@Override
+	public CacheStats getStats()
+	{
+		return algorithm.getStats();
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return algorithm.getStatsAndReset();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ExpiringAlgoCacheImpl [cache = " + algorithm + ", capacity=" + capacity + "]";
+	}
+}
@@ -0,0 +1,105 @@
+package com.hit.algorithm;
+
+/*
+ * A count-min sketch which estimates how often keys were used, with 4 bit counters packed sixteen to a long.
+ * Every key has a counter in each of 4 rows, and its estimate is the smallest of them, so a collision with another
+ * key can only make the estimate higher. Counters stop at 15, and once the number of uses reaches the sample
+ * size all the counters are halved, so keys which were popular long ago fade and newly popular keys can compete.
+ */
+final class FrequencySketch
+{
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;		//Clears the bit which moves into the next counter on halving
+	private static final int MAX_TABLE_LENGTH = 1 << 30;
+	private final long[] table;
+	private final int tableMask;
+	private final int sampleSize;
+	private int size;
+
+	//capacity - number of keys in the cache, which the table and the sample size are proportional to
+	FrequencySketch(int capacity)
+	{
+		int length = Math.min(MAX_TABLE_LENGTH, Integer.highestOneBit(Math.max(2, capacity) - 1) << 1);
+
+		table = new long[length];
+		tableMask = length - 1;
+		sampleSize = (capacity <= Integer.MAX_VALUE / 10) ? Math.max(10, 10 * capacity) : Integer.MAX_VALUE;
+	}
+
+	//Returns the estimated number of uses of the key since the counters were last halved, at most 15
+	int frequency(Object key)
+	{
+		int hash = spread(key.hashCode());
+		int frequency = 15;
+		long rowHash;
+
+		for(int row = 0; row < SEEDS.length; row++)
+		{
+			rowHash = rowHash(hash, row);
+			frequency = Math.min(frequency, (int) (table[index(rowHash)] >>> shift(rowHash)) & 15);
+		}
+
+		return frequency;
+	}
+
+	//Counts a use of the key
+	void increment(Object key)
+	{
+		int hash = spread(key.hashCode());
+		boolean incremented = false;
+		long rowHash;
+		int index, shift;
+
+		for(int row = 0; row < SEEDS.length; row++)
+		{
+			rowHash = rowHash(hash, row);
+			index = index(rowHash);
+			shift = shift(rowHash);
+
+			if(((table[index] >>> shift) & 15) != 15)
+			{
+				table[index] += 1L << shift;
+				incremented = true;
+			}
+		}
+
+		if(incremented && ++size == sampleSize)
+			reset();
+	}
+
+	//Halves all the counters
+	private void reset()
+	{
+		for(int i = 0; i < table.length; i++)
+		{
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+
+		size /= 2;
+	}
+
+	//An independent hash of the key for each row, which picks both the long and the counter inside it
+	private static long rowHash(int hash, int row)
+	{
+		long h = (hash + SEEDS[row]) * SEEDS[row];
+
+		return h + (h >>> 32);
+	}
+
+	private int index(long rowHash)
+	{
+		return (int) rowHash & tableMask;
+	}
+
+	private static int shift(long rowHash)
+	{
+		return (int) (rowHash >>> 40 & 15) << 2;
+	}
+
+	static int spread(int hash)
+	{
+		hash *= 0x9E3779B9;
+
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -1,5 +1,7 @@
 package com.hit.algorithm;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 public interface IAlgoCache<K,V>
@@ -12,4 +14,68 @@ public interface IAlgoCache<K,V>
 	
 	//Removes the mapping for the specified key from this map if present.
 	public void removeElement(List<K> key);
+	
+	//Same as putElement, and also adds the values of all the pages which were replaced to evictedValues, in the order they were replaced.
+	//A cache whose capacity is a weight may replace several pages for a single key, or the page itself if it is heavier than the whole cache,
+	//while putElement returns only the first of them for each key. By default the replaced values putElement returns are added.
+	public default List<V> putElement(List<K> keys, List<V> values, List<V> evictedValues)
+	{
+		List<V> replacedValues = putElement(keys, values);
+		
+		for(V replacedValue:replacedValues)
+		{
+			if(replacedValue != null)
+				evictedValues.add(replacedValue);
+		}
+		
+		return replacedValues;
+	}
+	
+	//Same as putElement, but for pages which may never be used, such as prefetched ones: they go where they are replaced first,
+	//so they don't push out pages which are in use, and keys already in the cache are left as they are.
+	//By default it is the same as putElement.
+	public default List<V> putElementWithLowPriority(List<K> keys, List<V> values)
+	{
+		return putElement(keys, values);
+	}
+	
+	//Same as getElement for the first count keys, but writes the values into the given array instead of returning a list.
+	public default void getElement(K[] keys, int count, V[] values)
+	{
+		Iterator<V> valuesIterator = getElement(Arrays.asList(keys).subList(0, count)).iterator();
+		
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = valuesIterator.next();
+		}
+	}
+	
+	//Same as putElement for the first count pairs, but writes the replaced values into the given array instead of returning a list.
+	public default void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		Iterator<V> replacedIterator = putElement(Arrays.asList(keys).subList(0, count), Arrays.asList(values).subList(0, count)).iterator();
+		
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = replacedIterator.next();
+		}
+	}
+	
+	//Same as removeElement for the first count keys.
+	public default void removeElement(K[] keys, int count)
+	{
+		removeElement(Arrays.asList(keys).subList(0, count));
+	}
+	
+	//Returns the hit, miss, eviction, put and remove counters and the current size, or null if this cache does not record statistics.
+	public default CacheStats getStats()
+	{
+		return null;
+	}
+	
+	//Returns the same as getStats, and starts counting again from zero.
+	public default CacheStats getStatsAndReset()
+	{
+		return null;
+	}
 }
\ No newline at end of file
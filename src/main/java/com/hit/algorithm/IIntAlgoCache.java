@@ -0,0 +1,58 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * A cache whose keys are int page numbers. The single key methods work on primitive ints, so lookups
+ * don't box the key, and the list methods of IAlgoCache are implemented on top of them.
+ */
+public interface IIntAlgoCache<V> extends IAlgoCache<Integer, V>
+{
+	//Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	public V getElement(int key);
+
+	//Associates the specified value with the specified key in this cache according to the current algorithm, and returns the replaced value or null.
+	public V putElement(int key, V value);
+
+	//Removes the mapping for the specified key from this map if present.
+	public void removeElement(int key);
+
+	@Override
+	public default List<V> getElement(List<Integer> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(Integer key:keys)
+		{
+			valuesToReturn.add(getElement(key.intValue()));
+		}
+
+		return valuesToReturn;
+	}
+
+	@Override
+	public default List<V> putElement(List<Integer> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<Integer> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putElement(keysIterator.next().intValue(), valuesIterator.next()));
+		}
+
+		return valuesToReturn;
+	}
+
+	@Override
+	public default void removeElement(List<Integer> keys)
+	{
+		for(Integer key:keys)
+		{
+			removeElement(key.intValue());
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.hit.algorithm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * LRU for int page numbers. Pages live in fixed slots and the recency order is a doubly linked list
+ * kept in two int arrays, so an entry costs a few ints and a reference instead of map nodes and a boxed key.
+ */
+public class IntLRUAlgoCacheImpl<V> implements IIntAlgoCache<V>
+{
+	private static final int NONE = -1;
+	private IntSlotIndex index;
+	private Object[] values;
+	private int[] older;
+	private int[] newer;
+	private int leastRecentlyUsed = NONE;
+	private int mostRecentlyUsed = NONE;
+	private int[] freeSlots;
+	private int freeSlotsCount;
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public IntLRUAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	public IntLRUAlgoCacheImpl(int size)
+	{
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		index = new IntSlotIndex(capacity);
+		values = new Object[capacity];
+		older = new int[capacity];
+		newer = new int[capacity];
+		freeSlots = new int[capacity];
+
+		for(int slot = capacity - 1; slot >= 0; slot--)
+		{
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition marks the key as the most recently used
+	 */
+	@Override
+	public V getElement(int key)
+	{
+		int slot = index.find(key);
+
+		if(slot == NONE)
+			return null;
+
+		unlink(slot);
+		linkAsMostRecent(slot);
+
+		return valueAt(slot);
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Returns:
+	 * the value of the least recently used element if it was replaced, otherwise null
+	 */
+	@Override
+	public V putElement(int key, V value)
+	{
+		V valueToReplace = null;
+		int slot = index.find(key);
+
+		if(slot != NONE)									//Update the value and move the key to the top
+			unlink(slot);
+		else
+		{
+			if(freeSlotsCount > 0)
+				slot = freeSlots[--freeSlotsCount];
+			else											//Memory is full, replace the least recently used key
+			{
+				slot = leastRecentlyUsed;
+				valueToReplace = valueAt(slot);
+				unlink(slot);
+				index.remove(index.keyAt(slot));
+			}
+
+			index.insert(key, slot);
+		}
+
+		values[slot] = value;
+		linkAsMostRecent(slot);
+
+		return valueToReplace;
+	}
+
+	@Override
+	public void removeElement(int key)
+	{
+		int slot = index.remove(key);
+
+		if(slot != NONE)
+		{
+			unlink(slot);
+			values[slot] = null;
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	private void unlink(int slot)
+	{
+		if(older[slot] == NONE)
+			leastRecentlyUsed = newer[slot];
+		else
+			newer[older[slot]] = newer[slot];
+
+		if(newer[slot] == NONE)
+			mostRecentlyUsed = older[slot];
+		else
+			older[newer[slot]] = older[slot];
+	}
+
+	private void linkAsMostRecent(int slot)
+	{
+		older[slot] = mostRecentlyUsed;
+		newer[slot] = NONE;
+
+		if(mostRecentlyUsed == NONE)
+			leastRecentlyUsed = slot;
+		else
+			newer[mostRecentlyUsed] = slot;
+
+		mostRecentlyUsed = slot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int slot)
+	{
+		return (V) values[slot];
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<Integer, V> cache = new LinkedHashMap<>();
+
+		for(int slot = leastRecentlyUsed; slot != NONE; slot = newer[slot])
+		{
+			cache.put(index.keyAt(slot), valueAt(slot));
+		}
+
+		return "IntLRUAlgoCacheImpl [cache = " + cache + ", capacity = " + capacity + "]";
+	}
+}
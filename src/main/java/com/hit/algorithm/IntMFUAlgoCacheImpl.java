@@ -0,0 +1,259 @@
+package com.hit.algorithm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * MFU for int page numbers, with the frequency buckets of MFUAlgoCacheImpl laid out in int arrays.
+ * Each page slot stores its bucket and its neighbours inside the bucket, and each bucket stores its use counter,
+ * its oldest and newest pages and its neighbouring buckets. There are never more buckets than pages,
+ * so both are preallocated and nothing is allocated per access.
+ */
+public class IntMFUAlgoCacheImpl<V> implements IIntAlgoCache<V>
+{
+	private static final int NONE = -1;
+	private IntSlotIndex index;
+	private Object[] values;
+	private int[] bucketOf;
+	private int[] previousInBucket;
+	private int[] nextInBucket;
+	private int[] freeSlots;
+	private int freeSlotsCount;
+
+	private int[] bucketCounter;
+	private int[] bucketOldest;
+	private int[] bucketNewest;
+	private int[] lowerBucket;
+	private int[] higherBucket;
+	private int[] freeBuckets;
+	private int freeBucketsCount;
+	private int lowestBucket = NONE;
+	private int highestBucket = NONE;
+
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public IntMFUAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	public IntMFUAlgoCacheImpl(int size)
+	{
+		int bucketsCount;
+
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		bucketsCount = capacity + 1;					//A counter increment creates the next bucket before the old one empties
+
+		index = new IntSlotIndex(capacity);
+		values = new Object[capacity];
+		bucketOf = new int[capacity];
+		previousInBucket = new int[capacity];
+		nextInBucket = new int[capacity];
+		freeSlots = new int[capacity];
+		bucketCounter = new int[bucketsCount];
+		bucketOldest = new int[bucketsCount];
+		bucketNewest = new int[bucketsCount];
+		lowerBucket = new int[bucketsCount];
+		higherBucket = new int[bucketsCount];
+		freeBuckets = new int[bucketsCount];
+
+		for(int slot = capacity - 1; slot >= 0; slot--)
+		{
+			freeSlots[freeSlotsCount++] = slot;
+		}
+
+		for(int bucket = bucketsCount - 1; bucket >= 0; bucket--)
+		{
+			freeBuckets[freeBucketsCount++] = bucket;
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition increments the use counter of the key
+	 */
+	@Override
+	public V getElement(int key)
+	{
+		int slot = index.find(key);
+
+		if(slot == NONE)
+			return null;
+
+		incrementCounter(slot);
+
+		return valueAt(slot);
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Returns:
+	 * the value of the most frequently used element if it was replaced, otherwise null
+	 */
+	@Override
+	public V putElement(int key, V value)
+	{
+		V valueToReplace = null;
+		int slot = index.find(key);
+
+		if(slot != NONE)								//Update value of key and use counter
+			incrementCounter(slot);
+		else
+		{
+			if(freeSlotsCount > 0)
+				slot = freeSlots[--freeSlotsCount];
+			else										//Replace the oldest key among the ones with the maximum use counter
+			{
+				slot = bucketOldest[highestBucket];
+				valueToReplace = valueAt(slot);
+				unlinkSlot(slot);
+				index.remove(index.keyAt(slot));
+			}
+
+			if(lowestBucket == NONE || bucketCounter[lowestBucket] != 1)		//New keys start with a use counter of 1
+				linkBucketAfter(newBucket(1), NONE);
+
+			index.insert(key, slot);
+			appendSlot(slot, lowestBucket);
+		}
+
+		values[slot] = value;
+
+		return valueToReplace;
+	}
+
+	@Override
+	public void removeElement(int key)
+	{
+		int slot = index.remove(key);
+
+		if(slot != NONE)
+		{
+			unlinkSlot(slot);
+			values[slot] = null;
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	//Moves a slot to the bucket of the next use counter, creating that bucket if needed
+	private void incrementCounter(int slot)
+	{
+		int currentBucket = bucketOf[slot];
+		int nextBucket = higherBucket[currentBucket];
+
+		if(nextBucket == NONE || bucketCounter[nextBucket] != bucketCounter[currentBucket] + 1)
+		{
+			nextBucket = newBucket(bucketCounter[currentBucket] + 1);
+			linkBucketAfter(nextBucket, currentBucket);
+		}
+
+		unlinkSlot(slot);
+		appendSlot(slot, nextBucket);
+	}
+
+	private int newBucket(int counter)
+	{
+		int bucket = freeBuckets[--freeBucketsCount];
+
+		bucketCounter[bucket] = counter;
+		bucketOldest[bucket] = NONE;
+		bucketNewest[bucket] = NONE;
+
+		return bucket;
+	}
+
+	//Inserts a bucket right after the given one, or as the lowest bucket if the given one is NONE
+	private void linkBucketAfter(int bucket, int lower)
+	{
+		lowerBucket[bucket] = lower;
+		higherBucket[bucket] = (lower == NONE) ? lowestBucket : higherBucket[lower];
+
+		if(lower == NONE)
+			lowestBucket = bucket;
+		else
+			higherBucket[lower] = bucket;
+
+		if(higherBucket[bucket] == NONE)
+			highestBucket = bucket;
+		else
+			lowerBucket[higherBucket[bucket]] = bucket;
+	}
+
+	private void unlinkBucket(int bucket)
+	{
+		if(lowerBucket[bucket] == NONE)
+			lowestBucket = higherBucket[bucket];
+		else
+			higherBucket[lowerBucket[bucket]] = higherBucket[bucket];
+
+		if(higherBucket[bucket] == NONE)
+			highestBucket = lowerBucket[bucket];
+		else
+			lowerBucket[higherBucket[bucket]] = lowerBucket[bucket];
+
+		freeBuckets[freeBucketsCount++] = bucket;
+	}
+
+	//Adds a slot as the newest one of the given bucket
+	private void appendSlot(int slot, int bucket)
+	{
+		bucketOf[slot] = bucket;
+		previousInBucket[slot] = bucketNewest[bucket];
+		nextInBucket[slot] = NONE;
+
+		if(bucketNewest[bucket] == NONE)
+			bucketOldest[bucket] = slot;
+		else
+			nextInBucket[bucketNewest[bucket]] = slot;
+
+		bucketNewest[bucket] = slot;
+	}
+
+	//Removes a slot from its bucket, and the bucket itself once it is empty
+	private void unlinkSlot(int slot)
+	{
+		int bucket = bucketOf[slot];
+
+		if(previousInBucket[slot] == NONE)
+			bucketOldest[bucket] = nextInBucket[slot];
+		else
+			nextInBucket[previousInBucket[slot]] = nextInBucket[slot];
+
+		if(nextInBucket[slot] == NONE)
+			bucketNewest[bucket] = previousInBucket[slot];
+		else
+			previousInBucket[nextInBucket[slot]] = previousInBucket[slot];
+
+		if(bucketOldest[bucket] == NONE)
+			unlinkBucket(bucket);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int slot)
+	{
+		return (V) values[slot];
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<Integer, V> cache = new LinkedHashMap<>();
+		Map<Integer, Integer> usageCount = new LinkedHashMap<>();
+
+		for(int bucket = lowestBucket; bucket != NONE; bucket = higherBucket[bucket])
+		{
+			for(int slot = bucketOldest[bucket]; slot != NONE; slot = nextInBucket[slot])
+			{
+				cache.put(index.keyAt(slot), valueAt(slot));
+				usageCount.put(index.keyAt(slot), bucketCounter[bucket]);
+			}
+		}
+
+		return "IntMFUAlgoCacheImpl [cache = " + cache + ", capacity=" + capacity + "]    [items counter: " + usageCount + "]";
+	}
+}
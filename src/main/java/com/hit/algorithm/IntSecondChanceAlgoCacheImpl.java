@@ -0,0 +1,158 @@
+package com.hit.algorithm;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Second chance for int page numbers, implemented as a CLOCK like ClockAlgoCacheImpl:
+ * fixed slots, a bit set of reference bits and a persistent hand, with unboxed keys.
+ */
+public class IntSecondChanceAlgoCacheImpl<V> implements IIntAlgoCache<V>
+{
+	private IntSlotIndex index;
+	private Object[] values;
+	private BitSet referenceBit;
+	private int[] freeSlots;
+	private int freeSlotsCount;
+	private int hand;
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public IntSecondChanceAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	public IntSecondChanceAlgoCacheImpl(int size)
+	{
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		index = new IntSlotIndex(capacity);
+		values = new Object[capacity];
+		referenceBit = new BitSet(capacity);
+		freeSlots = new int[capacity];
+
+		for(int slot = capacity - 1; slot >= 0; slot--)		//Slots are handed out from the first one, in the same order the hand goes over them
+		{
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition gives the key a second chance
+	 */
+	@Override
+	public V getElement(int key)
+	{
+		int slot = index.find(key);
+
+		if(slot < 0)
+			return null;
+
+		referenceBit.set(slot);
+
+		return valueAt(slot);
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Returns:
+	 * the value of the element which was replaced, otherwise null
+	 */
+	@Override
+	public V putElement(int key, V value)
+	{
+		V valueToReplace = null;
+		int slot = index.find(key);
+
+		if(slot >= 0)
+			referenceBit.set(slot);						//The key is present, mark it as addressed
+		else
+		{
+			if(freeSlotsCount > 0)
+				slot = freeSlots[--freeSlotsCount];
+			else										//Memory is full and a page needs to be replaced
+			{
+				slot = findSlotToReplace();
+				valueToReplace = valueAt(slot);
+				index.remove(index.keyAt(slot));
+			}
+
+			index.insert(key, slot);
+			referenceBit.clear(slot);
+		}
+
+		values[slot] = value;
+
+		return valueToReplace;
+	}
+
+	/*
+	 * Advances the hand to the first page which was not addressed since the hand last passed it,
+	 * clearing the reference bits of the pages it skips. Only called when memory is full.
+	 * Returns:
+	 * slot of the page to be replaced
+	 */
+	private int findSlotToReplace()
+	{
+		int victim = referenceBit.nextClearBit(hand);
+
+		if(victim >= capacity)						//Every page from the hand to the end was addressed, continue from the start
+		{
+			referenceBit.clear(hand, capacity);
+			victim = referenceBit.nextClearBit(0);
+			referenceBit.clear(0, victim);
+		}
+		else
+			referenceBit.clear(hand, victim);
+
+		hand = (victim + 1 == capacity) ? 0 : victim + 1;
+
+		return victim;
+	}
+
+	@Override
+	public void removeElement(int key)
+	{
+		int slot = index.remove(key);
+
+		if(slot >= 0)
+		{
+			values[slot] = null;
+			referenceBit.clear(slot);
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int slot)
+	{
+		return (V) values[slot];
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<Integer, V> cache = new LinkedHashMap<>();
+		Map<Integer, Boolean> status = new LinkedHashMap<>();
+		int slot;
+
+		for(int i = 0; i < capacity; i++)
+		{
+			slot = (hand + i) % capacity;
+
+			if(index.find(index.keyAt(slot)) == slot)			//Freed slots keep a stale key, skip them
+			{
+				cache.put(index.keyAt(slot), valueAt(slot));
+				status.put(index.keyAt(slot), referenceBit.get(slot));
+			}
+		}
+
+		return "IntSecondChanceAlgoCacheImpl [cache = " + cache + ", capacity=" + capacity + "]    [items status: " + status + "]";
+	}
+}
@@ -0,0 +1,125 @@
+package com.hit.algorithm;
+
+import java.util.Arrays;
+
+/*
+ * Open addressing index from an int key to the fixed slot which holds it, the int specialization of SlotIndex.
+ * Keys are kept unboxed in a per-slot array and the hash table stores only slot numbers (plus one, so zero means empty).
+ */
+final class IntSlotIndex
+{
+	private final int[] keys;
+	private final int[] table;
+	private final int mask;
+
+	IntSlotIndex(int slots)
+	{
+		int tableSize = Integer.highestOneBit(Math.max(slots, 2) * 2 - 1) << 1;	//At least twice the slots, rounded to a power of two
+
+		keys = new int[slots];
+		table = new int[tableSize];
+		mask = tableSize - 1;
+	}
+
+	//Spreads the key so consecutive page numbers do not form long probe sequences
+	private int home(int key)
+	{
+		int hash = key * 0x9E3779B9;
+
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/*
+	 * Returns:
+	 * the slot which holds the key, or -1 if the key is not in the index
+	 */
+	int find(int key)
+	{
+		int position = home(key);
+		int slot;
+
+		while((slot = table[position]) != 0)
+		{
+			if(keys[slot - 1] == key)
+				return slot - 1;
+
+			position = (position + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	//Maps a key which is not in the index yet to the given free slot
+	void insert(int key, int slot)
+	{
+		int position = home(key);
+
+		while(table[position] != 0)
+		{
+			position = (position + 1) & mask;
+		}
+
+		keys[slot] = key;
+		table[position] = slot + 1;
+	}
+
+	/*
+	 * Removes a key from the index.
+	 * Returns:
+	 * the slot which held the key, or -1 if the key was not in the index
+	 */
+	int remove(int key)
+	{
+		int position = home(key);
+		int slot;
+
+		while((slot = table[position]) != 0)
+		{
+			if(keys[slot - 1] == key)
+			{
+				shiftBack(position);
+				return slot - 1;
+			}
+
+			position = (position + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	//Closes the gap at the given position by moving back every following entry whose probe sequence passes through it
+	private void shiftBack(int gap)
+	{
+		int position = gap;
+		int entryHome;
+
+		while(true)
+		{
+			position = (position + 1) & mask;
+
+			if(table[position] == 0)
+				break;
+
+			entryHome = home(keys[table[position] - 1]);
+
+			if(gap <= position ? (gap < entryHome && entryHome <= position) : (gap < entryHome || entryHome <= position))
+				continue;														//The entry is still reachable from its home position
+
+			table[gap] = table[position];
+			gap = position;
+		}
+
+		table[gap] = 0;
+	}
+
+	//Only meaningful for slots which are currently in use
+	int keyAt(int slot)
+	{
+		return keys[slot];
+	}
+
+	void clear()
+	{
+		Arrays.fill(table, 0);
+	}
+}
@@ -1,8 +1,10 @@
 package com.hit.algorithm;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -10,8 +12,15 @@ import java.util.Map;
 public class LRUAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 {
 	private Map<K, V> virtualMemory;
+	private Map<K, V> coldPages;								//Put with low priority and not used since, replaced before all the other pages
 	private int capacity;
+	private int maxColdPages;
+	private StatsCounter statsCounter;							//Null unless statistics are recorded
+	private Weigher<? super K, ? super V> weigher;				//Null when the capacity is a number of pages
+	private long maxWeight;
+	private long totalWeight;
 	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5 ;
+	private static final int COLD_PAGES_SHARE = 4;				//Pages put with low priority replace other pages only up to a quarter of the capacity
 
 	public LRUAlgoCacheImpl()
 	{
@@ -20,16 +29,46 @@ public class LRUAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	
 	public LRUAlgoCacheImpl(int size)
 	{
+		this(size, false);
+	}
+	
+	//recordStats - whether to count hits, misses and evictions for getStats
+	public LRUAlgoCacheImpl(int size, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+		
 		if(size>0)
 		{
-			virtualMemory= new LinkedHashMap<>(size);
+			virtualMemory= new LinkedHashMap<>(size, 0.75f, true);		//Access order: every get or put moves the key to the end
 			this.capacity=size;
 		}
 		else
 		{
-			virtualMemory= new LinkedHashMap<>(VIRTUAL_MEMORY_DEFAULT_SIZE);
+			virtualMemory= new LinkedHashMap<>(VIRTUAL_MEMORY_DEFAULT_SIZE, 0.75f, true);
 			this.capacity=VIRTUAL_MEMORY_DEFAULT_SIZE;
 		}
+		
+		coldPages = new LinkedHashMap<>();
+		maxColdPages = Math.max(1, capacity / COLD_PAGES_SHARE);
+	}
+	
+	/*
+	 * A cache whose capacity is a total weight instead of a number of pages.
+	 * Parameters:
+	 * maxWeight - the total weight of all the pages together
+	 * weigher - gives the weight of every page, for example its size in bytes
+	 */
+	public LRUAlgoCacheImpl(long maxWeight, Weigher<? super K, ? super V> weigher)
+	{
+		this(maxWeight, weigher, false);
+	}
+	
+	public LRUAlgoCacheImpl(long maxWeight, Weigher<? super K, ? super V> weigher, boolean recordStats)
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE, recordStats);
+		this.weigher = weigher;
+		this.maxWeight = (maxWeight > 0) ? maxWeight : VIRTUAL_MEMORY_DEFAULT_SIZE;
 	}
 	
 	/*
@@ -43,23 +82,49 @@ public class LRUAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	@Override
 	public List<V> getElement(List<K> keys)
 	{
-		List<V> valuesToReturn= new LinkedList<>();
+		List<V> valuesToReturn= new ArrayList<>(keys.size());
 		
 		for(K key:keys)									//For each key on the given list
 		{
-			if(virtualMemory.containsKey(key))			//If the key is in the memory already
-			{
-				V valueOfKey = virtualMemory.get(key);	
-				valuesToReturn.add(valueOfKey);				//Add the value of this key to the returned values list
-				virtualMemory.remove(key);				
-				virtualMemory.put(key, valueOfKey);		//Remove it and re-insert it, to keep track of the least recently used
-			}
-			else
-				valuesToReturn.add(null);					//In case the key is not in the memory, add null to the returned list
+			valuesToReturn.add(getValue(key));			//Add the value of this key, or null if it is not in the memory
 		}
 		
 		return valuesToReturn;
 	}
+	
+	//Bulk version of getElement, which writes the values into the given array and allocates nothing
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+	
+	//Returns the value of a single key, or null if it is not in the memory
+	private V getValue(K key)
+	{
+		V valueOfKey = virtualMemory.get(key);			//The memory is kept in access order, so this also moves the key to the top
+		boolean found = valueOfKey != null || virtualMemory.containsKey(key);
+		
+		if(!found && !coldPages.isEmpty() && coldPages.containsKey(key))	//A page put with low priority is used at last, so it moves to the top
+		{
+			valueOfKey = coldPages.remove(key);
+			virtualMemory.put(key, valueOfKey);
+			found = true;
+		}
+		
+		if(found)
+		{
+			if(statsCounter != null)
+				statsCounter.recordHit();
+		}
+		else if(statsCounter != null)
+			statsCounter.recordMiss();
+		
+		return valueOfKey;
+	}
 
 	/*
 	 * Associates the specified value with the specified key in this cache according to the current algorithm
@@ -67,44 +132,189 @@ public class LRUAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	 * key - with which the specified value is to be associated
 	 * value - to be associated with the specified key
 	 * Returns:
-	 * return the value of the element which need to be replaced
+	 * return the value of the element which need to be replaced.
+	 * When the capacity is a weight, a single page may replace several, and only the first of them is returned for it
 	 */
 	public List<V> putElement(List<K> keys, List<V> values)
 	{
-		List<V> valuesToReturn = new LinkedList<>();						//Values which have been eliminated
-		K currentKey,	removedKey;
-		V currentValue,	removedValue;
+		return putValues(keys, values, (weigher != null) ? new ArrayList<>() : null);
+	}
+	
+	//The same, and adds the values of all the replaced pages to evictedValues, also the ones a weighted page replaced after its first
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values, List<V> evictedValues)
+	{
+		return putValues(keys, values, evictedValues);
+	}
+	
+	//evictedValues may be null unless the capacity is a weight
+	private List<V> putValues(List<K> keys, List<V> values, List<V> evictedValues)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());				//Values which have been eliminated
 		Iterator<K> keysIterator = keys.iterator();
 		Iterator<V> valuesIterator = values.iterator();
+		V replacedValue;
+		int evictedCount;
 		
 		while (keysIterator.hasNext() && valuesIterator.hasNext())	//We will continue as long as both keys and values list are not over
 		{
-				removedValue = null;
-				currentKey = keysIterator.next();
-				currentValue = valuesIterator.next();
+			if(weigher != null)
+			{
+				evictedCount = evictedValues.size();
+				putWeightedValue(keysIterator.next(), valuesIterator.next(), evictedValues);
+				valuesToReturn.add((evictedValues.size() > evictedCount) ? evictedValues.get(evictedCount) : null);	//The first page it replaced
+			}
+			else
+			{
+				replacedValue = putValue(keysIterator.next(), valuesIterator.next());
+				valuesToReturn.add(replacedValue);		//Add the value to be remove or null if none was removed
+				
+				if(replacedValue != null && evictedValues != null)
+					evictedValues.add(replacedValue);
+			}
+		}
+		
+		return valuesToReturn;
+	}
+	
+	//Bulk version of putElement, which writes the replaced values into the given array.
+	//Not available when the capacity is a weight, since a page may replace more pages than the array has room for
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		if(weigher != null)
+			throw new UnsupportedOperationException("A weighted cache may replace several pages per key, use putElement with a list of evicted values");
+		
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+	
+	//Puts a single key at the top, and returns the value of the least recently used key if it had to be replaced
+	private V putValue(K currentKey, V currentValue)
+	{
+		V removedValue = null;
+		
+		if(!coldPages.isEmpty() && coldPages.containsKey(currentKey))
+			coldPages.remove(currentKey);
+		else if (virtualMemory.size() + coldPages.size() == capacity && !virtualMemory.containsKey(currentKey))	//Memory is full and a page needs to be replaced
+			removedValue = replacePage(coldPages.isEmpty() ? virtualMemory : coldPages);
+		
+		virtualMemory.put(currentKey, currentValue);		//Insert the current key to the memory, or move it to the top if it is there already
+		
+		if(statsCounter != null)
+			statsCounter.recordPut();
+		
+		return removedValue;
+	}
+	
+	/*
+	 * Puts pages below the least recently used one, in the order they were put, so they are replaced before any page in use.
+	 * While there are few of them they replace the least recently used pages to make room, but once they hold a quarter of the
+	 * capacity they replace each other, so wrong guesses can't push out more than that.
+	 * Keys already in the cache are left as they are. A cache whose capacity is a weight puts them as putElement does.
+	 * Parameters:
+	 * keys - of the pages
+	 * values - of the pages
+	 * Returns:
+	 * the values of the pages which were replaced, or null for each key which did not replace a page
+	 */
+	@Override
+	public List<V> putElementWithLowPriority(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+		K currentKey;
+		V currentValue;
+		
+		if(weigher != null)
+			return putElement(keys, values);
+		
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			currentKey = keysIterator.next();
+			currentValue = valuesIterator.next();
+			
+			if(virtualMemory.containsKey(currentKey) || coldPages.containsKey(currentKey))
+				valuesToReturn.add(null);
+			else
+			{
+				if(virtualMemory.size() + coldPages.size() == capacity)
+					valuesToReturn.add(replacePage((coldPages.size() < maxColdPages && !virtualMemory.isEmpty()) ? virtualMemory : coldPages));
+				else
+					valuesToReturn.add(null);
 				
-				if (virtualMemory.size() == capacity)						//Memory is full and a page needs to be replaced
-				{
-					if (virtualMemory.containsKey(currentKey))
-					{
-						virtualMemory.remove(currentKey);				//Remove and add the current key at top
-						
-					}
-					else
-					{
-						removedKey = virtualMemory.keySet().iterator().next();	//Find the first(and therefore the least recently used) key 			
-						removedValue = virtualMemory.get(removedKey);			//Use it to find it's value
-						virtualMemory.remove(removedKey);						//removing the entry using the key to be removed
-					}
-				}
+				coldPages.put(currentKey, currentValue);
 				
-				valuesToReturn.add(removedValue);					//Add the value to be remove or null if none was removed
-				virtualMemory.put(currentKey, currentValue);		//Insert the current key to the memory
+				if(statsCounter != null)
+					statsCounter.recordPut();
+			}
 		}
 		
 		return valuesToReturn;
 	}
 	
+	//Removes the first page of the given pages, the least recently used or the oldest put with low priority, and returns its value
+	private V replacePage(Map<K, V> pages)
+	{
+		Iterator<Map.Entry<K, V>> first = pages.entrySet().iterator();
+		V removedValue = first.next().getValue();
+		
+		first.remove();
+		
+		if(statsCounter != null)
+			statsCounter.recordEviction();
+		
+		return removedValue;
+	}
+	
+	/*
+	 * Puts a single key at the top of a weighted cache, first replacing least recently used pages until it fits.
+	 * A page heavier than the whole cache is not kept, and is reported as replaced itself.
+	 * Parameters:
+	 * evictedValues - to which the values of all the replaced pages are added
+	 */
+	private void putWeightedValue(K currentKey, V currentValue, List<V> evictedValues)
+	{
+		Iterator<Map.Entry<K, V>> leastRecentlyUsed;
+		Map.Entry<K, V> entry;
+		V previousValue = virtualMemory.remove(currentKey);
+		int weight = weigher.weigh(currentKey, currentValue);
+		
+		if(previousValue != null)
+			totalWeight -= weigher.weigh(currentKey, previousValue);
+		
+		if(weight > maxWeight)
+		{
+			evictedValues.add(currentValue);
+			
+			if(statsCounter != null)
+				statsCounter.recordEviction();
+		}
+		else
+		{
+			while(totalWeight + weight > maxWeight)		//Replace pages from the least recently used one until the page fits
+			{
+				leastRecentlyUsed = virtualMemory.entrySet().iterator();
+				entry = leastRecentlyUsed.next();
+				leastRecentlyUsed.remove();
+				totalWeight -= weigher.weigh(entry.getKey(), entry.getValue());
+				evictedValues.add(entry.getValue());
+				
+				if(statsCounter != null)
+					statsCounter.recordEviction();
+			}
+			
+			virtualMemory.put(currentKey, currentValue);
+			totalWeight += weight;
+		}
+		
+		if(statsCounter != null)
+			statsCounter.recordPut();
+	}
+	
 	/*
 	 * Removes the mapping for the specified key from this map if present.
 	 * Parameters:
@@ -115,12 +325,145 @@ public class LRUAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	{
 		for(K key:keys)
 		{
-			virtualMemory.remove(key);
+			removeKey(key);
+		}
+	}
+	
+	@Override
+	public void removeElement(K[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			removeKey(keys[i]);
+		}
+	}
+	
+	private void removeKey(K key)
+	{
+		V removedValue = virtualMemory.remove(key);
+		
+		if(removedValue == null && !coldPages.isEmpty())
+			removedValue = coldPages.remove(key);
+		
+		if(removedValue != null)
+		{
+			if(weigher != null)
+				totalWeight -= weigher.weigh(key, removedValue);
+			
+			if(statsCounter != null)
+				statsCounter.recordRemove();
+		}
+	}
+	
+	/*
+	 * Saves the pages to a file, from the least recently used one, so readSnapshot can restore them after a restart.
+	 * Pages put with low priority come first, since they are the first to be replaced, after the number of them.
+	 * Parameters:
+	 * file - to write, replacing it if it exists
+	 * keyCodec - writes the keys
+	 * valueCodec - writes the values
+	 */
+	public void writeSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		try (SnapshotWriter writer = new SnapshotWriter(file, SnapshotWriter.LRU, virtualMemory.size() + coldPages.size()))
+		{
+			writer.writeInt(coldPages.size());
+			
+			for(Map.Entry<K, V> entry:coldPages.entrySet())
+			{
+				writer.write(keyCodec, entry.getKey());
+				writer.write(valueCodec, entry.getValue());
+			}
+			
+			for(Map.Entry<K, V> entry:virtualMemory.entrySet())
+			{
+				writer.write(keyCodec, entry.getKey());
+				writer.write(valueCodec, entry.getValue());
+			}
 		}
 	}
 	
+	/*
+	 * Replaces the pages with the ones saved by writeSnapshot, in the same order and with the same low priority pages,
+	 * so pages are replaced just as they would have been. A snapshot of a larger cache loses the pages LRU replaces first. Statistics are not changed,
+	 * and if the file can not be read the cache is left empty.
+	 * Parameters:
+	 * file - to read
+	 * keyCodec - reads the keys
+	 * valueCodec - reads the values
+	 */
+	public void readSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		Iterator<Map.Entry<K, V>> leastRecentlyUsed;
+		Map.Entry<K, V> entry;
+		K key;
+		V value;
+		int coldPagesCount;
+		
+		virtualMemory.clear();
+		coldPages.clear();
+		totalWeight = 0;
+		
+		try (SnapshotReader reader = new SnapshotReader(file, SnapshotWriter.LRU))
+		{
+			coldPagesCount = reader.readInt();
+			
+			if(coldPagesCount < 0 || coldPagesCount > reader.count())
+				throw new IOException(file + " has a wrong number of low priority pages");
+			
+			for(int i = 0; i < reader.count(); i++)
+			{
+				key = reader.read(keyCodec);
+				value = reader.read(valueCodec);
+				
+				if(i < coldPagesCount)
+					coldPages.put(key, value);
+				else
+					virtualMemory.put(key, value);
+				
+				if(weigher != null)
+					totalWeight += weigher.weigh(key, value);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			virtualMemory.clear();
+			coldPages.clear();
+			totalWeight = 0;
+			throw e;
+		}
+		
+		while((weigher == null) ? virtualMemory.size() + coldPages.size() > capacity : totalWeight > maxWeight)
+		{
+			leastRecentlyUsed = (coldPages.isEmpty() ? virtualMemory : coldPages).entrySet().iterator();
+			entry = leastRecentlyUsed.next();
+			leastRecentlyUsed.remove();
+			
+			if(weigher != null)
+				totalWeight -= weigher.weigh(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(virtualMemory.size() + coldPages.size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(virtualMemory.size() + coldPages.size());
+	}
+	
 	public String toString() 
 	{
+		if(weigher != null)
+			return "LRUAlgoCacheImpl [cache = " + virtualMemory + ", weight = " + totalWeight + ", maxWeight = " + maxWeight + "]";
+		
+		if(!coldPages.isEmpty())
+			return "LRUAlgoCacheImpl [cache = " + virtualMemory + ", low priority = " + coldPages + ", capacity = " + capacity + "]";
+		
 		return "LRUAlgoCacheImpl [cache = " + virtualMemory + ", capacity = " + capacity + "]";
 	}
 }
\ No newline at end of file
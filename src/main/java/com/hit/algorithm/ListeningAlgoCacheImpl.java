@@ -0,0 +1,158 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+ * A cache which reports every page that leaves it to a RemovalListener: pages the algorithm replaced (EVICTED),
+ * values a put replaced (REPLACED) and pages removeElement removed (EXPLICIT). Each is reported with its key and value,
+ * which the algorithm alone can not give, as putElement returns the replaced values without their keys and removeElement returns nothing.
+ * For pages which expire, ExpiringAlgoCacheImpl reports the same causes and EXPIRED.
+ *
+ * Example: new ListeningAlgoCacheImpl<Integer, Page>(1000, new AsyncRemovalListener<>(this::writeBack), LRUAlgoCacheImpl::new)
+ */
+public class ListeningAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private IAlgoCache<K, CacheEntry<K, V>> algorithm;
+	private Map<K, CacheEntry<K, V>> entries;
+	private RemovalListener<K, V> removalListener;
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	/*
+	 * Parameters:
+	 * size - number of pages
+	 * removalListener - gets the pages which leave the cache, on the thread which removed them
+	 * algorithm - creates the cache which replaces pages, for example LRUAlgoCacheImpl::new
+	 */
+	public ListeningAlgoCacheImpl(int size, RemovalListener<K, V> removalListener, IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> algorithm)
+	{
+		this.capacity = (size > 0) ? size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.removalListener = removalListener;
+		this.algorithm = algorithm.apply(capacity);
+		entries = new HashMap<>(capacity);
+	}
+
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(CacheEntry<K, V> entry:algorithm.getElement(keys))
+		{
+			valuesToReturn.add((entry == null) ? null : entry.getValue());
+		}
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced, which is also reported as EVICTED
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+		}
+
+		return valuesToReturn;
+	}
+
+	private V putValue(K key, V value)
+	{
+		CacheEntry<K, V> entry = entries.get(key);
+		V replacedValue = null;
+		V previousValue;
+
+		if(entry != null)											//Update the page in place, and let the algorithm know it was used
+		{
+			previousValue = entry.getValue();
+			entry.setValue(value);
+			putInAlgorithm(entry);
+			removalListener.onRemoval(new RemovalNotification<>(key, previousValue, RemovalCause.REPLACED));
+		}
+		else
+		{
+			entry = new CacheEntry<>(key, value);
+			entries.put(key, entry);
+			replacedValue = putInAlgorithm(entry);
+		}
+
+		return replacedValue;
+	}
+
+	/*
+	 * Puts a single page in the algorithm, and forgets and reports the entries it replaced. An algorithm with a weighted capacity
+	 * may replace several, or the page itself if it is heavier than the whole cache.
+	 * Returns:
+	 * the value of the first replaced entry, or null if none was replaced
+	 */
+	private V putInAlgorithm(CacheEntry<K, V> entry)
+	{
+		List<CacheEntry<K, V>> replacedEntries = new ArrayList<>();
+		V firstReplacedValue = null;
+
+		algorithm.putElement(Collections.singletonList(entry.getKey()), Collections.singletonList(entry), replacedEntries);
+
+		for(CacheEntry<K, V> replacedEntry:replacedEntries)
+		{
+			entries.remove(replacedEntry.getKey(), replacedEntry);
+			removalListener.onRemoval(new RemovalNotification<>(replacedEntry.getKey(), replacedEntry.getValue(), RemovalCause.EVICTED));
+
+			if(firstReplacedValue == null)
+				firstReplacedValue = replacedEntry.getValue();
+		}
+
+		return firstReplacedValue;
+	}
+
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		CacheEntry<K, V> entry;
+
+		algorithm.removeElement(keys);
+
+		for(K key:keys)
+		{
+			entry = entries.remove(key);
+
+			if(entry != null)
+				removalListener.onRemoval(new RemovalNotification<>(key, entry.getValue(), RemovalCause.EXPLICIT));
+		}
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return algorithm.getStats();
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return algorithm.getStatsAndReset();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ListeningAlgoCacheImpl [cache = " + algorithm + ", capacity=" + capacity + "]";
+	}
+}
@@ -0,0 +1,205 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * A read-through cache: getElement never returns null for a missing page, it loads all the pages
+ * which missed in the batch with a single call to the loader, puts them in the cache and returns them.
+ *
+ * Loads are coalesced: while a page is being loaded, other threads which miss on it wait for that load
+ * instead of starting their own, so a burst of requests for a cold page reaches the backing store once.
+ *
+ * The wrapped cache is used from several threads at once, so it should be thread-safe,
+ * for example new LoadingAlgoCacheImpl<>(new ConcurrentAlgoCacheImpl<>(1000, LRUAlgoCacheImpl::new), loader)
+ */
+public class LoadingAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private IAlgoCache<K, V> cache;
+	private Function<List<K>, List<V>> loader;
+	private ConcurrentMap<K, CompletableFuture<V>> loadsInFlight = new ConcurrentHashMap<>();
+	private Consumer<K> waitListener;									//Null unless set by a test
+
+	/*
+	 * Parameters:
+	 * cache - holding the loaded pages
+	 * loader - gets the keys which missed and returns their values in the same order, null for a key that has no value
+	 */
+	public LoadingAlgoCacheImpl(IAlgoCache<K, V> cache, Function<List<K>, List<V>> loader)
+	{
+		this.cache = cache;
+		this.loader = loader;
+	}
+
+	/*
+	 * Returns the values of the given keys, loading the ones which are not in the cache.
+	 * An exception thrown by the loader is thrown to every request which waited for that load.
+	 * Parameters:
+	 * keys - to get
+	 * Returns:
+	 * the values of the keys, null only for keys the loader has no value for
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(cache.getElement(keys));
+		List<CompletableFuture<V>> loads = new ArrayList<>();
+		List<Integer> missingPositions = new ArrayList<>();
+		List<K> keysToLoad = new ArrayList<>();
+		List<CompletableFuture<V>> ownLoads = new ArrayList<>();
+		Iterator<K> keysIterator = keys.iterator();
+		CompletableFuture<V> load, existingLoad;
+		K key;
+
+		for(int i = 0; i < valuesToReturn.size(); i++)
+		{
+			key = keysIterator.next();
+
+			if(valuesToReturn.get(i) == null)
+			{
+				load = new CompletableFuture<>();
+				existingLoad = loadsInFlight.putIfAbsent(key, load);
+
+				if(existingLoad == null)					//Nobody is loading this key, so this request loads it
+				{
+					keysToLoad.add(key);
+					ownLoads.add(load);
+				}
+				else										//Wait for the load another request (or this one, for a repeated key) started
+				{
+					load = existingLoad;
+
+					if(waitListener != null)
+						waitListener.accept(key);
+				}
+
+				missingPositions.add(i);
+				loads.add(load);
+			}
+		}
+
+		if(!keysToLoad.isEmpty())
+			load(keysToLoad, ownLoads);
+
+		for(int i = 0; i < loads.size(); i++)
+		{
+			valuesToReturn.set(missingPositions.get(i), join(loads.get(i)));
+		}
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Loads the keys this request took over, puts them in the cache and completes their loads.
+	 * Requests which miss on the keys meanwhile wait for these loads, which leave the in flight map
+	 * only after their values are in the cache.
+	 */
+	private void load(List<K> keys, List<CompletableFuture<V>> ownLoads)
+	{
+		List<V> loadedValues;
+		List<K> keysToPut = new ArrayList<>(keys.size());
+		List<V> valuesToPut = new ArrayList<>(keys.size());
+
+		try
+		{
+			loadedValues = loader.apply(keys);
+
+			if(loadedValues == null || loadedValues.size() != keys.size())
+				throw new IllegalStateException("The loader returned " + (loadedValues == null ? "null" : loadedValues.size() + " values") + " for " + keys.size() + " keys");
+
+			for(int i = 0; i < keys.size(); i++)
+			{
+				if(loadedValues.get(i) != null)			//Keys the loader has no value for are not cached, so they are loaded again next time
+				{
+					keysToPut.add(keys.get(i));
+					valuesToPut.add(loadedValues.get(i));
+				}
+			}
+
+			cache.putElement(keysToPut, valuesToPut);
+
+			for(int i = 0; i < keys.size(); i++)
+			{
+				ownLoads.get(i).complete(loadedValues.get(i));
+			}
+		}
+		catch (RuntimeException | Error e)
+		{
+			for(CompletableFuture<V> load:ownLoads)
+			{
+				load.completeExceptionally(e);
+			}
+
+			throw e;
+		}
+		finally
+		{
+			for(int i = 0; i < keys.size(); i++)
+			{
+				loadsInFlight.remove(keys.get(i), ownLoads.get(i));
+			}
+		}
+	}
+
+	//Lets a test know a request is going to wait for the load of a key instead of loading it, so it can finish that load only then
+	void setWaitListener(Consumer<K> waitListener)
+	{
+		this.waitListener = waitListener;
+	}
+
+	//Waits for a load, throwing the exception of the loader as is
+	private static <V> V join(CompletableFuture<V> load)
+	{
+		try
+		{
+			return load.join();
+		}
+		catch (CompletionException e)
+		{
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if(e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+
+			throw e;
+		}
+	}
+
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		return cache.putElement(keys, values);
+	}
+
+	//A load which is in flight while its key is removed still puts its value when it finishes
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		cache.removeElement(keys);
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return cache.getStats();
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return cache.getStatsAndReset();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "LoadingAlgoCacheImpl [cache = " + cache + "]    [loads in flight: " + loadsInFlight.keySet() + "]";
+	}
+}
@@ -1,77 +1,211 @@
 package com.hit.algorithm;
 
-import java.util.Arrays;
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 public class MFUAlgoCacheImpl<K,V> implements IAlgoCache<K, V> {
-	
-	private Map<K, V> virtualMemory;
-	private Map<K, Integer> usageCount;
+
+	private Map<K, UsageNode<K, V>> virtualMemory;
+	private FrequencyBucket<K, V> lowestBucket;			// Buckets are kept in ascending use counter order,
+	private FrequencyBucket<K, V> highestBucket;		// so the highest one always holds the next victims.
 	private Integer capacity;
+	private StatsCounter statsCounter;					// Null unless statistics are recorded.
+	private Weigher<? super K, ? super V> weigher;		// Null when the capacity is a number of keys.
+	private long maxWeight;
+	private long totalWeight;
 	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5 ;
 
+	/*
+	 * A key in memory, linked into the bucket of its current use counter.
+	 * Nodes inside a bucket are ordered from the oldest to the newest.
+	 */
+	private static final class UsageNode<K, V>
+	{
+		private K key;												// Not final, the node of an evicted key is reused for the key which replaces it.
+		private V value;
+		private FrequencyBucket<K, V> bucket;
+		private UsageNode<K, V> previous;
+		private UsageNode<K, V> next;
+
+		private UsageNode(K key, V value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	/*
+	 * All the keys which share the same use counter.
+	 * Buckets are linked to each other in ascending counter order.
+	 */
+	private static final class FrequencyBucket<K, V>
+	{
+		private final int counter;
+		private UsageNode<K, V> oldest;
+		private UsageNode<K, V> newest;
+		private FrequencyBucket<K, V> lower;
+		private FrequencyBucket<K, V> higher;
+
+		private FrequencyBucket(int counter)
+		{
+			this.counter = counter;
+		}
+	}
+
 	// Default constructor with default virtual memory size.
-	public MFUAlgoCacheImpl() 
+	public MFUAlgoCacheImpl()
 	{
 		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
 	}
 
 	// Constructor which gets the virtual memory size as an argument.
-	public MFUAlgoCacheImpl(Integer size) 
+	public MFUAlgoCacheImpl(Integer size)
 	{
-		if(size > 0) 
+		this(size, false);
+	}
+
+	// Constructor which also sets whether to count hits, misses and evictions for getStats.
+	public MFUAlgoCacheImpl(Integer size, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		if(size > 0)
 		{
-			virtualMemory = new HashMap<K, V>(size);
-			usageCount = new LinkedHashMap<K, Integer>(size);
+			virtualMemory = new HashMap<K, UsageNode<K, V>>(size);
 			capacity = size;
 		}
-		else 
+		else
 		{
-			virtualMemory = new HashMap<K, V>(VIRTUAL_MEMORY_DEFAULT_SIZE);
-			usageCount = new LinkedHashMap<K, Integer>(VIRTUAL_MEMORY_DEFAULT_SIZE);
+			virtualMemory = new HashMap<K, UsageNode<K, V>>(VIRTUAL_MEMORY_DEFAULT_SIZE);
 			capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
 		}
 	}
-	
+
+	/*
+	 * Constructor of a cache whose capacity is a total weight instead of a number of keys.
+	 * Parameters:
+	 * maxWeight - the total weight of all the keys together.
+	 * weigher - gives the weight of every key and value, for example the size of the value in bytes.
+	 */
+	public MFUAlgoCacheImpl(long maxWeight, Weigher<? super K, ? super V> weigher)
+	{
+		this(maxWeight, weigher, false);
+	}
+
+	public MFUAlgoCacheImpl(long maxWeight, Weigher<? super K, ? super V> weigher, boolean recordStats)
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE, recordStats);
+		this.weigher = weigher;
+		this.maxWeight = (maxWeight > 0) ? maxWeight : VIRTUAL_MEMORY_DEFAULT_SIZE;
+	}
+
 	/*
 	 * Helping method to find the key with the maximum use counter.
+	 * Among keys with the same counter the one which holds it the longest is chosen.
 	 * Returns:
 	 * key with maximum use counter.
 	 */
-	private K findMax() 
+	private K findMax()
 	{
-		Integer maxValueInMap = (Collections.max(usageCount.values()));  	// This will return max value in the Hash map
-        
-		for (Entry<K, Integer> entry : usageCount.entrySet()) 
-		{  		// Iterate through hash map
-            if (entry.getValue() == maxValueInMap) 
-            {                
-                return entry.getKey();									// Return the key with max value
-            }
-        }
-		
-        return null;
+		if(highestBucket == null)
+			return null;
+
+		return highestBucket.oldest.key;
 	}
 
 	/*
-	 * Associates the new specified value with the existing specified key in memory.
+	 * Helping method to move a node to the bucket of the next use counter, creating that bucket if needed.
 	 * Parameters:
-	 * key - with which the specified value is to be associated.
-	 * value - to be associated with the specified key.
+	 * node - whose use counter is incremented.
 	 */
-	private void updateValue(K key, V newValue) 
+	private void incrementCounter(UsageNode<K, V> node)
 	{
-		Integer newCounter = usageCount.get(key) + 1;
-		virtualMemory.put(key, newValue);							// Update value of key and use counter.
-		usageCount.remove(key);
-		usageCount.put(key, newCounter);
+		FrequencyBucket<K, V> currentBucket = node.bucket;
+		FrequencyBucket<K, V> nextBucket = currentBucket.higher;
+
+		if(nextBucket == null || nextBucket.counter != currentBucket.counter + 1)
+		{
+			nextBucket = new FrequencyBucket<K, V>(currentBucket.counter + 1);
+			linkBucketAfter(nextBucket, currentBucket);
+		}
+
+		unlinkNode(node);														// Also drops the old bucket if it is now empty.
+		appendNode(node, nextBucket);
+	}
+
+	// Inserts a bucket right after the given one, or as the lowest bucket if the given one is null.
+	private void linkBucketAfter(FrequencyBucket<K, V> bucket, FrequencyBucket<K, V> lowerBucket)
+	{
+		bucket.lower = lowerBucket;
+		bucket.higher = (lowerBucket == null) ? lowestBucket : lowerBucket.higher;
+
+		if(bucket.lower == null)
+			lowestBucket = bucket;
+		else
+			bucket.lower.higher = bucket;
+
+		if(bucket.higher == null)
+			highestBucket = bucket;
+		else
+			bucket.higher.lower = bucket;
+	}
+
+	private void unlinkBucket(FrequencyBucket<K, V> bucket)
+	{
+		if(bucket.lower == null)
+			lowestBucket = bucket.higher;
+		else
+			bucket.lower.higher = bucket.higher;
+
+		if(bucket.higher == null)
+			highestBucket = bucket.lower;
+		else
+			bucket.higher.lower = bucket.lower;
+	}
+
+	// Adds a node as the newest one of the given bucket.
+	private void appendNode(UsageNode<K, V> node, FrequencyBucket<K, V> bucket)
+	{
+		node.bucket = bucket;
+		node.previous = bucket.newest;
+		node.next = null;
+
+		if(bucket.newest == null)
+			bucket.oldest = node;
+		else
+			bucket.newest.next = node;
+
+		bucket.newest = node;
+	}
+
+	// Removes a node from its bucket, and the bucket itself from the buckets list once it is empty.
+	private void unlinkNode(UsageNode<K, V> node)
+	{
+		FrequencyBucket<K, V> bucket = node.bucket;
+
+		if(node.previous == null)
+			bucket.oldest = node.next;
+		else
+			node.previous.next = node.next;
+
+		if(node.next == null)
+			bucket.newest = node.previous;
+		else
+			node.next.previous = node.previous;
+
+		if(bucket.oldest == null)
+			unlinkBucket(bucket);
+
+		node.bucket = null;
+		node.previous = null;
+		node.next = null;
 	}
 
 	/*
@@ -79,15 +213,27 @@ public class MFUAlgoCacheImpl<K,V> implements IAlgoCache<K, V> {
 	 * Parameters:
 	 * key - with which the specified value is to be associated.
 	 * value - to be associated with the specified key.
+	 * node - of an evicted key to reuse, or null to create a new one.
 	 */
-	private void registerNewKey(K key, V newValue) 
+	private void registerNewKey(K key, V newValue, UsageNode<K, V> node)
 	{
-		virtualMemory.put(key, newValue);					
-		usageCount.put(key, 1);
+		if(node == null)
+			node = new UsageNode<K, V>(key, newValue);
+		else
+		{
+			node.key = key;
+			node.value = newValue;
+		}
+
+		if(lowestBucket == null || lowestBucket.counter != 1)		// New keys start with a use counter of 1.
+			linkBucketAfter(new FrequencyBucket<K, V>(1), null);
+
+		appendNode(node, lowestBucket);
+		virtualMemory.put(key, node);
 	}
-	
+
 	/*
-	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key. 
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
 	 * In addition performs the relevant cache algorithm
 	 * Parameters:
 	 * key - with which the specified value is to be associated
@@ -95,93 +241,401 @@ public class MFUAlgoCacheImpl<K,V> implements IAlgoCache<K, V> {
 	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
 	 */
 	@Override
-	public List<V> getElement(List<K> key) 
+	public List<V> getElement(List<K> key)
 	{
-		List<V> valuesToReturn = new LinkedList<V>();
-		
-		for(K k: key) 
+		List<V> valuesToReturn = new ArrayList<V>(key.size());
+
+		for(K k: key)
 		{
-			if(virtualMemory.containsKey(k)) {
-				valuesToReturn.add(virtualMemory.get(k));
-			    usageCount.put(k, usageCount.get(k) + 1);				// Updating use counter.
-			}
-			else
-				valuesToReturn.add(null);
+			valuesToReturn.add(getValue(k));
 		}
-		
+
 		return valuesToReturn;
 	}
 
+	// Bulk version of getElement, which writes the values into the given array and allocates nothing.
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+
+	// Returns the value of a single key and updates its use counter, or null if it is not in memory.
+	private V getValue(K key)
+	{
+		UsageNode<K, V> node = virtualMemory.get(key);
+
+		if(node != null) {
+			incrementCounter(node);										// Updating use counter.
+
+			if(statsCounter != null)
+				statsCounter.recordHit();
+
+			return node.value;
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordMiss();
+
+		return null;
+	}
+
 	/*
 	 * Associates the specified value with the specified key in this cache according to the current algorithm
 	 * Parameters:
 	 * key - with which the specified value is to be associated
 	 * value - to be associated with the specified key
 	 * Returns:
-	 * return the value of the element which need to be replaced
+	 * return the value of the element which need to be replaced.
+	 * When the capacity is a weight, a single key may replace several, and only the first of them is returned for it.
+	 */
+	@Override
+	public List<V> putElement(List<K> key, List<V> value)
+	{
+		return putValues(key, value, (weigher != null) ? new ArrayList<>() : null);
+	}
+
+	// The same, and adds the values of all the replaced keys to evictedValues, also the ones a weighted key replaced after its first.
+	@Override
+	public List<V> putElement(List<K> key, List<V> value, List<V> evictedValues)
+	{
+		return putValues(key, value, evictedValues);
+	}
+
+	// evictedValues may be null unless the capacity is a weight.
+	private List<V> putValues(List<K> key, List<V> value, List<V> evictedValues)
+	{
+		List<V> valuesToReturn = new ArrayList<V>(key.size());
+		Iterator<K> keyIterator = key.iterator();
+		Iterator<V> valueIterator = value.iterator();
+		V replacedValue;
+		int evictedCount;
+
+		while(keyIterator.hasNext() && valueIterator.hasNext())
+		{
+			if(weigher != null)
+			{
+				evictedCount = evictedValues.size();
+				putWeightedValue(keyIterator.next(), valueIterator.next(), evictedValues);
+				valuesToReturn.add((evictedValues.size() > evictedCount) ? evictedValues.get(evictedCount) : null);	// The first key it replaced.
+			}
+			else
+			{
+				replacedValue = putValue(keyIterator.next(), valueIterator.next());
+				valuesToReturn.add(replacedValue);
+
+				if(replacedValue != null && evictedValues != null)
+					evictedValues.add(replacedValue);
+			}
+		}
+
+		return valuesToReturn;
+	}
+
+	// Bulk version of putElement, which writes the replaced values into the given array.
+	// Not available when the capacity is a weight, since a key may replace more keys than the array has room for.
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		if(weigher != null)
+			throw new UnsupportedOperationException("A weighted cache may replace several keys per key, use putElement with a list of evicted values");
+
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+
+	// Puts a single key, and returns the value of the key it replaced or null if there was no need to replace.
+	private V putValue(K currentKey, V currentValue)
+	{
+		UsageNode<K, V> node = virtualMemory.get(currentKey);
+		V currentValueToReplace = null;
+
+		if(node != null) 													// If key exist in memory:
+		{
+			node.value = currentValue;										// Update value of key and use counter.
+			incrementCounter(node);
+		}
+		else
+		{
+			if(virtualMemory.size() == capacity) 							// If virtual memory is full and key does not exist in memory:
+			{
+				node = virtualMemory.remove(findMax());						// Remove the key with the maximum use counter before inserting the new one.
+				unlinkNode(node);
+				currentValueToReplace = node.value;
+
+				if(statsCounter != null)
+					statsCounter.recordEviction();
+			}
+
+			registerNewKey(currentKey, currentValue, node);					// Insert new key and value and create use counter for that key which set to 1.
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return currentValueToReplace;
+	}
+
+	/*
+	 * Puts keys which may never be used, such as prefetched ones. MFU replaces the keys with the maximum use counter first,
+	 * so a new key joins them, behind the ones already there, instead of starting at 1, which would keep it longer than any other.
+	 * A key already in memory is left as it is. A cache whose capacity is a weight puts them as putElement does.
+	 * Returns:
+	 * the values of the keys which were replaced, or null for each key which did not replace a key.
 	 */
 	@Override
-	public List<V> putElement(List<K> key, List<V> value) 
+	public List<V> putElementWithLowPriority(List<K> key, List<V> value)
 	{
-		List<V> valuesToReturn = new LinkedList<V>();
-		K keyToRemove, currentKey;
-		V currentValueToReplace, currentValue;
+		List<V> valuesToReturn = new ArrayList<V>(key.size());
 		Iterator<K> keyIterator = key.iterator();
 		Iterator<V> valueIterator = value.iterator();
-		
-		while(keyIterator.hasNext() && valueIterator.hasNext()) 
+		UsageNode<K, V> node;
+		K currentKey;
+
+		if(weigher != null)
+			return putElement(key, value);
+
+		while(keyIterator.hasNext() && valueIterator.hasNext())
 		{
-			currentValueToReplace = null;
 			currentKey = keyIterator.next();
-			currentValue = valueIterator.next();
-			
-			if(virtualMemory.size() == capacity) 
-			{ 								
-				if(!virtualMemory.containsKey(currentKey)) 						// If virtual memory is full and key does not exist in memory:
-				{    					 
-					keyToRemove = findMax();									// Get the key with the maximum use counter.	
-					currentValueToReplace = virtualMemory.get(keyToRemove);
-					removeElement(Arrays.asList(keyToRemove));					// Remove this key and insert the new values.
-					registerNewKey(currentKey, currentValue);
-				}
-				else 															// If virtual memory is full and key exist in memory:
-					updateValue(currentKey, currentValue);						// Update value of key and use counter.
+
+			if(virtualMemory.containsKey(currentKey))
+			{
+				valueIterator.next();
+				valuesToReturn.add(null);
 			}
-			else 
+			else
 			{
-				if(virtualMemory.containsKey(currentKey)) 						// If memory is not full yet and key exist in memory:
-					updateValue(currentKey, currentValue);						// Update value of key and use counter.
-				else 
+				valuesToReturn.add(putValue(currentKey, valueIterator.next()));	// Registered with a use counter of 1,
+				node = virtualMemory.get(currentKey);
+
+				if(node.bucket != highestBucket)								// then moved behind the keys with the maximum one.
 				{
-					registerNewKey(currentKey, currentValue);					// If memory is not full yet and key does no exist in memory:	
-					usageCount.put(currentKey, 1);								// Insert new key and value and create use counter for that key which set to 1.
+					unlinkNode(node);
+					appendNode(node, highestBucket);
 				}
 			}
-			
-			valuesToReturn.add(currentValueToReplace);
 		}
-		
+
 		return valuesToReturn;
 	}
 
+	/*
+	 * Puts a single key in a weighted cache, replacing keys with the maximum use counter until the total weight fits.
+	 * A key which is updated may be replaced itself if it has the maximum use counter,
+	 * and a new key heavier than the whole cache is not kept, and is reported as replaced itself.
+	 * Parameters:
+	 * evictedValues - to which the values of all the replaced keys are added.
+	 */
+	private void putWeightedValue(K currentKey, V currentValue, List<V> evictedValues)
+	{
+		UsageNode<K, V> node = virtualMemory.get(currentKey);
+		int weight = weigher.weigh(currentKey, currentValue);
+
+		if(node != null)													// If key exist in memory, update it and then make room for its new weight.
+		{
+			totalWeight += weight - weigher.weigh(currentKey, node.value);
+			node.value = currentValue;
+			incrementCounter(node);
+
+			while(totalWeight > maxWeight)
+				evictValue(evictedValues);
+		}
+		else if(weight > maxWeight)
+		{
+			evictedValues.add(currentValue);
+
+			if(statsCounter != null)
+				statsCounter.recordEviction();
+		}
+		else
+		{
+			while(totalWeight + weight > maxWeight)
+				evictValue(evictedValues);
+
+			registerNewKey(currentKey, currentValue, null);
+			totalWeight += weight;
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+	}
+
+	// Removes the key with the maximum use counter from a weighted cache, adding its value to the given list.
+	private void evictValue(List<V> evictedValues)
+	{
+		UsageNode<K, V> node = virtualMemory.remove(findMax());
+
+		unlinkNode(node);
+		totalWeight -= weigher.weigh(node.key, node.value);
+		evictedValues.add(node.value);
+
+		if(statsCounter != null)
+			statsCounter.recordEviction();
+	}
+
+	// Removes a single key and its use counter from memory, if present. Returns whether it was present.
+	private boolean removeKey(K key)
+	{
+		UsageNode<K, V> node = virtualMemory.remove(key);
+
+		if(node == null)
+			return false;
+
+		unlinkNode(node);
+
+		if(weigher != null)
+			totalWeight -= weigher.weigh(key, node.value);
+
+		return true;
+	}
+
 	/*
 	 * Removes the mapping for the specified key from this map if present.
 	 * Parameters:
 	 * key - whose mapping is to be removed from the cache according to the current algorithm
 	 */
 	@Override
-	public void removeElement(List<K> key) 									
-	{									
-		for(K k: key) 
+	public void removeElement(List<K> key)
+	{
+		for(K k: key)
 		{
-			virtualMemory.remove(k);
-			usageCount.remove(k);
+			if(removeKey(k) && statsCounter != null)
+				statsCounter.recordRemove();
 		}
 	}
 
 	@Override
-	public String toString() 
+	public void removeElement(K[] keys, int count)
 	{
-		return "MFUAlgoCacheImpl [cache = " + virtualMemory + ", capacity=" + capacity + "]    [items counter: " + usageCount + "]";
+		for(int i = 0; i < count; i++)
+		{
+			if(removeKey(keys[i]) && statsCounter != null)
+				statsCounter.recordRemove();
+		}
+	}
+
+	/*
+	 * Saves the keys to a file with their use counters, from the lowest counter and the oldest key of every counter,
+	 * so readSnapshot can restore them after a restart.
+	 * Parameters:
+	 * file - to write, replacing it if it exists.
+	 * keyCodec - writes the keys.
+	 * valueCodec - writes the values.
+	 */
+	public void writeSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		try (SnapshotWriter writer = new SnapshotWriter(file, SnapshotWriter.MFU, virtualMemory.size()))
+		{
+			for(FrequencyBucket<K, V> bucket = lowestBucket; bucket != null; bucket = bucket.higher)
+			{
+				for(UsageNode<K, V> node = bucket.oldest; node != null; node = node.next)
+				{
+					writer.write(keyCodec, node.key);
+					writer.write(valueCodec, node.value);
+					writer.writeInt(bucket.counter);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Replaces the keys with the ones saved by writeSnapshot, with the same use counters and in the same order,
+	 * so keys are replaced just as they would have been. A snapshot of a larger cache loses the keys with the maximum use counter.
+	 * Statistics are not changed, and if the file can not be read the cache is left empty.
+	 * Parameters:
+	 * file - to read.
+	 * keyCodec - reads the keys.
+	 * valueCodec - reads the values.
+	 */
+	public void readSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		UsageNode<K, V> node;
+		int counter;
+
+		clear();
+
+		try (SnapshotReader reader = new SnapshotReader(file, SnapshotWriter.MFU))
+		{
+			for(int i = reader.count(); i > 0; i--)
+			{
+				node = new UsageNode<K, V>(reader.read(keyCodec), reader.read(valueCodec));
+				counter = reader.readInt();
+
+				if(counter < 1 || (highestBucket != null && counter < highestBucket.counter))
+					throw new IOException(file + " has use counters out of order");
+
+				if(highestBucket == null || highestBucket.counter != counter)	// Keys come in ascending counter order, so every bucket is added last.
+					linkBucketAfter(new FrequencyBucket<K, V>(counter), highestBucket);
+
+				appendNode(node, highestBucket);
+
+				if(virtualMemory.put(node.key, node) != null)
+					throw new IOException(file + " has the key " + node.key + " twice");
+
+				if(weigher != null)
+					totalWeight += weigher.weigh(node.key, node.value);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			clear();
+			throw e;
+		}
+
+		while((weigher == null) ? virtualMemory.size() > capacity : totalWeight > maxWeight)
+		{
+			node = virtualMemory.remove(findMax());
+			unlinkNode(node);
+
+			if(weigher != null)
+				totalWeight -= weigher.weigh(node.key, node.value);
+		}
+	}
+
+	private void clear()
+	{
+		virtualMemory.clear();
+		lowestBucket = null;
+		highestBucket = null;
+		totalWeight = 0;
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(virtualMemory.size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(virtualMemory.size());
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<K, V> cache = new LinkedHashMap<K, V>();
+		Map<K, Integer> usageCount = new LinkedHashMap<K, Integer>();
+
+		for(FrequencyBucket<K, V> bucket = lowestBucket; bucket != null; bucket = bucket.higher)
+		{
+			for(UsageNode<K, V> node = bucket.oldest; node != null; node = node.next)
+			{
+				cache.put(node.key, node.value);
+				usageCount.put(node.key, bucket.counter);
+			}
+		}
+
+		if(weigher != null)
+			return "MFUAlgoCacheImpl [cache = " + cache + ", weight=" + totalWeight + ", maxWeight=" + maxWeight + "]    [items counter: " + usageCount + "]";
+
+		return "MFUAlgoCacheImpl [cache = " + cache + ", capacity=" + capacity + "]    [items counter: " + usageCount + "]";
 	}
 }
@@ -0,0 +1,244 @@
+package com.hit.algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+ * A page cache whose page contents live outside the Java heap. All the frames are preallocated in direct
+ * byte buffer slabs, and the heap only holds a small Frame per page with its key and frame number.
+ * The chosen algorithm (LRU, Second Chance, MFU...) manages the frames, so when the memory is full it decides
+ * which frame is reclaimed, and that frame is handed straight to the incoming page.
+ *
+ * Pages are fixed size: putElement copies the remaining bytes of each given buffer into the page frame and
+ * zero fills the rest, and getElement returns read-only views of the frames themselves, valid until
+ * their page is replaced or removed. Replaced pages are copied out to heap buffers before their frame is reused.
+ *
+ * Example: new OffHeapAlgoCacheImpl<Integer>(1000000, 4096, LRUAlgoCacheImpl::new)
+ */
+public class OffHeapAlgoCacheImpl<K> implements IAlgoCache<K, ByteBuffer>
+{
+	//The value the algorithm keeps for each page: which frame holds it
+	public static final class Frame
+	{
+		private final Object key;
+		private int index;
+
+		private Frame(Object key, int index)
+		{
+			this.key = key;
+			this.index = index;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "frame " + index;
+		}
+	}
+
+	private static final int MAX_SLAB_BYTES = 1 << 30;
+	private IAlgoCache<K, Frame> algorithm;
+	private Map<K, Frame> frames;
+	private ByteBuffer[] slabs;
+	private int framesPerSlab;
+	private int frameSize;
+	private ByteBuffer zeroFrame;
+	private int[] freeFrames;
+	private int freeFramesCount;
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+	private static final int DEFAULT_FRAME_SIZE = 4096;
+
+	public OffHeapAlgoCacheImpl(IntFunction<? extends IAlgoCache<K, Frame>> algorithm)
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE, DEFAULT_FRAME_SIZE, algorithm);
+	}
+
+	/*
+	 * Parameters:
+	 * size - number of page frames
+	 * frameSize - size of a single page in bytes
+	 * algorithm - creates the cache which decides which frame to reclaim, for example SecondChanceAlgoCacheImpl::new
+	 */
+	public OffHeapAlgoCacheImpl(int size, int frameSize, IntFunction<? extends IAlgoCache<K, Frame>> algorithm)
+	{
+		int slabFrames;
+
+		this.capacity = (size > 0) ? size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.frameSize = (frameSize > 0) ? frameSize : DEFAULT_FRAME_SIZE;
+		this.algorithm = algorithm.apply(capacity);
+		frames = new HashMap<>(capacity);
+		framesPerSlab = Math.max(1, MAX_SLAB_BYTES / this.frameSize);
+		slabs = new ByteBuffer[(capacity - 1) / framesPerSlab + 1];
+		zeroFrame = ByteBuffer.allocateDirect(this.frameSize);
+		freeFrames = new int[capacity];
+
+		for(int slab = 0; slab < slabs.length; slab++)
+		{
+			slabFrames = Math.min(framesPerSlab, capacity - slab * framesPerSlab);
+			slabs[slab] = ByteBuffer.allocateDirect(slabFrames * this.frameSize);
+		}
+
+		for(int frame = capacity - 1; frame >= 0; frame--)
+		{
+			freeFrames[freeFramesCount++] = frame;
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * a read-only view of the frame which holds the page of the key, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<ByteBuffer> getElement(List<K> keys)
+	{
+		List<Frame> framesOfKeys = algorithm.getElement(keys);
+		List<ByteBuffer> valuesToReturn = new ArrayList<>(framesOfKeys.size());
+
+		for(Frame frame:framesOfKeys)
+		{
+			valuesToReturn.add(frame == null ? null : frameView(frame.index).asReadOnlyBuffer());
+		}
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - page contents, at most frameSize bytes between its position and limit
+	 * Returns:
+	 * return a heap copy of the page which was replaced, or null if no page was replaced
+	 */
+	@Override
+	public List<ByteBuffer> putElement(List<K> keys, List<ByteBuffer> values)
+	{
+		List<ByteBuffer> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<ByteBuffer> valuesIterator = values.iterator();
+		List<Frame> replacedFrames = new ArrayList<>();
+		K currentKey;
+		ByteBuffer currentValue, replacedPage;
+		Frame frame;
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			replacedPage = null;
+			currentKey = keysIterator.next();
+			currentValue = valuesIterator.next();
+
+			if(currentValue.remaining() > frameSize)
+				throw new IllegalArgumentException("Page of " + currentValue.remaining() + " bytes does not fit in a frame of " + frameSize + " bytes");
+
+			frame = frames.get(currentKey);
+
+			if(frame == null)											//Otherwise the frame of the page is overwritten in place
+			{
+				frame = new Frame(currentKey, -1);						//The frame number is known only after the algorithm decides
+				frames.put(currentKey, frame);
+			}
+
+			replacedFrames.clear();
+			algorithm.putElement(Collections.singletonList(currentKey), Collections.singletonList(frame), replacedFrames);
+
+			for(Frame replacedFrame:replacedFrames)						//Copy out the replaced pages and free their frames for the new page
+			{
+				frames.remove(replacedFrame.key);
+
+				if(replacedPage == null)
+				{
+					replacedPage = ByteBuffer.allocate(frameSize).put((replacedFrame == frame) ? currentValue.duplicate() : frameView(replacedFrame.index));
+					replacedPage.flip();
+				}
+
+				if(replacedFrame.index >= 0)
+					freeFrames[freeFramesCount++] = replacedFrame.index;
+			}
+
+			if(frames.get(currentKey) == frame)							//Unless a weighted algorithm did not keep it, for being heavier than all of it
+			{
+				if(frame.index < 0)
+					frame.index = freeFrames[--freeFramesCount];
+
+				writeFrame(frame.index, currentValue);
+			}
+
+			valuesToReturn.add(replacedPage);
+		}
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present, and returns its frame to the free list.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		Frame frame;
+
+		algorithm.removeElement(keys);
+
+		for(K key:keys)
+		{
+			frame = frames.remove(key);
+
+			if(frame != null)
+				freeFrames[freeFramesCount++] = frame.index;
+		}
+	}
+
+	//Statistics of the algorithm which manages the frames, if it records them
+	@Override
+	public CacheStats getStats()
+	{
+		return algorithm.getStats();
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return algorithm.getStatsAndReset();
+	}
+
+	//A buffer whose content is exactly the given frame
+	private ByteBuffer frameView(int frame)
+	{
+		ByteBuffer view = slabs[frame / framesPerSlab].duplicate();
+		int offset = (frame % framesPerSlab) * frameSize;
+
+		view.limit(offset + frameSize).position(offset);
+
+		return view.slice();
+	}
+
+	//Copies the page into the frame without moving the position of the given buffer
+	private void writeFrame(int frame, ByteBuffer page)
+	{
+		ByteBuffer target = frameView(frame);
+		ByteBuffer zeroes = zeroFrame.duplicate();
+
+		target.put(page.duplicate());
+		zeroes.limit(target.remaining());
+		target.put(zeroes);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "OffHeapAlgoCacheImpl [frames = " + algorithm + ", capacity = " + capacity + ", frameSize = " + frameSize + "]";
+	}
+}
@@ -0,0 +1,340 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/*
+ * A cache of numbered pages which loads the next pages of sequential and strided scans before they are asked for.
+ *
+ * Every key got is matched against a few streams, each remembering its last page and the distance (stride) between its pages.
+ * Three pages in a row at the same stride (5, 6, 7 or 100, 108, 116, also inside a single getElement) start prefetching:
+ * the next depth pages of the stream are loaded by the loader on the executor, and the stream is loaded further ahead
+ * whenever less than half of that is left, so a scan makes one load call per depth / 2 pages instead of one miss per page.
+ *
+ * Loaded pages are put in the cache with putElementWithLowPriority, on the thread of the next getElement or putElement,
+ * so the cache need not be thread-safe, but like the algorithms themselves this cache should be used from one thread at a time.
+ * A page put or removed while it is being prefetched is not overwritten by the prefetched value.
+ * Misses still return null, as with any algorithm; the pages of a getElement itself are not prefetched.
+ *
+ * Example: new PrefetchingAlgoCacheImpl<String>(new LRUAlgoCacheImpl<>(1000), pages -> disk.read(pages))
+ */
+public class PrefetchingAlgoCacheImpl<V> implements IAlgoCache<Integer, V>
+{
+	//A scan: its last page, and the stride between its pages
+	private static final class Stream
+	{
+		long lastKey;
+		long stride;
+		int runLength;											//Pages in a row at the same stride, including the last one
+		long prefetchedUpTo;									//Last page loaded ahead, valid while the run lasts
+		long lastUse;
+	}
+
+	//Pages loaded on the executor, waiting to be put in the cache
+	private static final class LoadedPages<V>
+	{
+		final List<Integer> keys;
+		final List<V> values;
+
+		LoadedPages(List<Integer> keys, List<V> values)
+		{
+			this.keys = keys;
+			this.values = values;
+		}
+	}
+
+	private static final int DEFAULT_DEPTH = 8;
+	private static final int STREAMS = 8;
+	private static final int MIN_RUN_LENGTH = 3;
+	private static final int MAX_STRIDE = 64;					//Pages further apart than that are not taken as the same scan
+
+	private IAlgoCache<Integer, V> cache;
+	private Function<List<Integer>, List<V>> loader;
+	private Executor executor;
+	private int depth;
+	private Stream[] streams = new Stream[STREAMS];
+	private long uses;
+	private Map<Integer, Boolean> keysInFlight = new ConcurrentHashMap<>();	//Whether the page was put or removed meanwhile
+	private Queue<LoadedPages<V>> loadedPages = new ConcurrentLinkedQueue<>();
+	private long prefetchedPages;
+
+	//Loads on the common fork join pool, 8 pages ahead
+	public PrefetchingAlgoCacheImpl(IAlgoCache<Integer, V> cache, Function<List<Integer>, List<V>> loader)
+	{
+		this(cache, loader, ForkJoinPool.commonPool(), DEFAULT_DEPTH);
+	}
+
+	/*
+	 * Parameters:
+	 * cache - holding the pages
+	 * loader - gets the pages to prefetch and returns their values in the same order, null for a page that has no value
+	 * executor - runs the loader
+	 * depth - number of pages loaded ahead of a scan
+	 */
+	public PrefetchingAlgoCacheImpl(IAlgoCache<Integer, V> cache, Function<List<Integer>, List<V>> loader, Executor executor, int depth)
+	{
+		this.cache = cache;
+		this.loader = loader;
+		this.executor = executor;
+		this.depth = (depth > 0) ? depth : DEFAULT_DEPTH;
+
+		for(int i = 0; i < streams.length; i++)
+		{
+			streams[i] = new Stream();
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm, and starts loading the pages which come next in the scans of the keys
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<Integer> keys)
+	{
+		List<V> valuesToReturn;
+		List<Integer> keysToPrefetch = new ArrayList<>();
+		Collection<Integer> keysOfRequest;
+
+		putLoadedPages();
+		valuesToReturn = cache.getElement(keys);
+
+		for(Integer key:keys)
+		{
+			if(key != null)
+				detect(key, keysToPrefetch);
+		}
+
+		if(!keysToPrefetch.isEmpty())
+		{
+			keysOfRequest = (keys.size() > 1) ? new HashSet<>(keys) : keys;
+			keysToPrefetch.removeIf(key -> keysOfRequest.contains(key) || keysInFlight.putIfAbsent(key, false) != null);
+		}
+
+		if(!keysToPrefetch.isEmpty())
+			prefetch(keysToPrefetch);
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Follows the stream the key continues, or starts a new one in place of the least recently used stream.
+	 * Parameters:
+	 * keysToPrefetch - to which the pages to load ahead are added
+	 */
+	private void detect(long key, List<Integer> keysToPrefetch)
+	{
+		Stream stream = null, nearest = null, oldest = streams[0];
+
+		uses++;
+
+		for(Stream candidate:streams)
+		{
+			if(candidate.runLength > 0 && (candidate.lastKey == key || (candidate.stride != 0 && candidate.lastKey + candidate.stride == key)))
+			{
+				stream = candidate;
+				break;
+			}
+
+			if(candidate.runLength > 0 && candidate.runLength < MIN_RUN_LENGTH && Math.abs(key - candidate.lastKey) <= MAX_STRIDE
+					&& (nearest == null || Math.abs(key - candidate.lastKey) < Math.abs(key - nearest.lastKey)))
+				nearest = candidate;
+
+			if(candidate.lastUse < oldest.lastUse)
+				oldest = candidate;
+		}
+
+		if(stream != null)
+		{
+			if(stream.lastKey != key)									//A repeated page neither continues nor breaks the run
+			{
+				stream.lastKey = key;
+				stream.runLength++;
+
+				if(stream.runLength >= MIN_RUN_LENGTH)
+					loadAhead(stream, keysToPrefetch);
+			}
+		}
+		else if(nearest != null)										//The second page of a scan sets its stride
+		{
+			stream = nearest;
+			stream.stride = key - stream.lastKey;
+			stream.lastKey = key;
+			stream.runLength = 2;
+		}
+		else
+		{
+			stream = oldest;
+			stream.stride = 0;
+			stream.lastKey = key;
+			stream.runLength = 1;
+		}
+
+		if(stream.runLength < MIN_RUN_LENGTH)
+			stream.prefetchedUpTo = stream.lastKey;
+
+		stream.lastUse = uses;
+	}
+
+	//Adds the pages from after the last one loaded ahead up to depth pages ahead, once less than half of that is left
+	private void loadAhead(Stream stream, List<Integer> keysToPrefetch)
+	{
+		long pagesAhead = (stream.prefetchedUpTo - stream.lastKey) / stream.stride;
+		long key;
+
+		if(pagesAhead > depth / 2)
+			return;
+
+		key = (pagesAhead > 0) ? stream.prefetchedUpTo : stream.lastKey;
+
+		for(long i = Math.max(pagesAhead, 0); i < depth; i++)
+		{
+			key += stream.stride;
+
+			if(key < Integer.MIN_VALUE || key > Integer.MAX_VALUE)
+				break;
+
+			keysToPrefetch.add((int) key);
+			stream.prefetchedUpTo = key;
+		}
+	}
+
+	//Loads the pages on the executor. A prefetch is only a guess, so if the executor rejects it the pages are not loaded
+	private void prefetch(List<Integer> keys)
+	{
+		try
+		{
+			executor.execute(() -> load(keys));
+		}
+		catch (RejectedExecutionException e)
+		{
+			keysInFlight.keySet().removeAll(keys);
+		}
+	}
+
+	//Runs on the executor. An exception thrown by the loader goes to the uncaught exception handler of the thread
+	private void load(List<Integer> keys)
+	{
+		List<V> loadedValues;
+
+		try
+		{
+			loadedValues = loader.apply(keys);
+
+			if(loadedValues == null || loadedValues.size() != keys.size())
+				throw new IllegalStateException("The loader returned " + (loadedValues == null ? "null" : loadedValues.size() + " values") + " for " + keys.size() + " keys");
+
+			loadedPages.add(new LoadedPages<>(keys, loadedValues));
+		}
+		catch (RuntimeException e)
+		{
+			keysInFlight.keySet().removeAll(keys);
+			Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+		}
+	}
+
+	//Puts the pages loaded since the last call with low priority, except the ones put or removed meanwhile
+	private void putLoadedPages()
+	{
+		LoadedPages<V> pages;
+		List<Integer> keysToPut = new ArrayList<>();
+		List<V> valuesToPut = new ArrayList<>();
+
+		while((pages = loadedPages.poll()) != null)
+		{
+			for(int i = 0; i < pages.keys.size(); i++)
+			{
+				if(Boolean.FALSE.equals(keysInFlight.remove(pages.keys.get(i))) && pages.values.get(i) != null)
+				{
+					keysToPut.add(pages.keys.get(i));
+					valuesToPut.add(pages.values.get(i));
+				}
+			}
+		}
+
+		if(!keysToPut.isEmpty())
+		{
+			cache.putElementWithLowPriority(keysToPut, valuesToPut);
+			prefetchedPages += keysToPut.size();
+		}
+	}
+
+	//Marks the pages being loaded among the keys, so their loaded values are dropped
+	private void invalidateLoads(List<Integer> keys)
+	{
+		if(keysInFlight.isEmpty())
+			return;
+
+		for(Integer key:keys)
+		{
+			keysInFlight.replace(key, false, true);
+		}
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<Integer> keys, List<V> values)
+	{
+		putLoadedPages();
+		invalidateLoads(keys);
+
+		return cache.putElement(keys, values);
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<Integer> keys)
+	{
+		putLoadedPages();
+		invalidateLoads(keys);
+		cache.removeElement(keys);
+	}
+
+	//Number of pages put in the cache by prefetching, used or not
+	public long getPrefetchedPages()
+	{
+		return prefetchedPages;
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return cache.getStats();
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return cache.getStatsAndReset();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PrefetchingAlgoCacheImpl [cache = " + cache + ", depth=" + depth + "]";
+	}
+}
@@ -0,0 +1,319 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/*
+ * A cache which can be shared between threads, whose reads don't take a lock. In LRU and MFU a hit is a write as well,
+ * since it moves the page to the top or counts its use, so under a lock reads wait for each other like writes.
+ * Here the pages are read from a ConcurrentHashMap, and a hit only records its key in a small ring buffer. Later, the thread
+ * which holds the lock gives the recorded keys to the algorithm in one getElement, so it sees the hits in a batch, a little late.
+ *
+ * There is a buffer per group of threads (a stripe), so threads rarely write to the same buffer.
+ * The buffers are lossy: a key is dropped when its buffer is full or another thread is writing to the same slot.
+ * The algorithm then misses a few hits of popular pages, which are hit again soon enough, rather than making the reader wait.
+ * A reader which finds its buffer full drains all the buffers if the lock is free, and otherwise goes on, since the holder
+ * of the lock will drain them. putElement and removeElement drain them under the lock before they change the pages.
+ *
+ * Example: new ReadBufferedAlgoCacheImpl<Integer, String>(1000, LRUAlgoCacheImpl::new)
+ */
+public class ReadBufferedAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	/*
+	 * A bounded ring of keys which many threads add to and only the holder of the lock takes from.
+	 * A slot is claimed by advancing the write counter, and filled after, so the drain stops at a claimed slot which is still empty.
+	 */
+	private static final class ReadBuffer<K>
+	{
+		private final AtomicReferenceArray<K> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+		private final AtomicLong writeCounter = new AtomicLong();
+		private volatile long readCounter;
+
+		//Returns false if the buffer is full. A key which lost the race for its slot is dropped without retrying
+		boolean offer(K key)
+		{
+			long tail = writeCounter.get();
+
+			if(tail - readCounter >= BUFFER_SIZE)
+				return false;
+
+			if(writeCounter.compareAndSet(tail, tail + 1))
+				slots.lazySet((int) (tail & (BUFFER_SIZE - 1)), key);
+
+			return true;
+		}
+
+		//Called only under the lock
+		void drainTo(List<K> keys)
+		{
+			long head = readCounter;
+			long tail = writeCounter.get();
+			int index;
+			K key;
+
+			for(; head < tail; head++)
+			{
+				index = (int) (head & (BUFFER_SIZE - 1));
+				key = slots.get(index);
+
+				if(key == null)												//Claimed, but not filled yet
+					break;
+
+				slots.lazySet(index, null);
+				keys.add(key);
+			}
+
+			readCounter = head;
+		}
+	}
+
+	private static final int BUFFER_SIZE = 16;
+	private static final int MAX_STRIPES = 64;
+	private IAlgoCache<K, CacheEntry<K, V>> algorithm;
+	private ConcurrentHashMap<K, CacheEntry<K, V>> entries;
+	private ReentrantLock lock = new ReentrantLock();
+	private ReadBuffer<K>[] readBuffers;
+	private int stripeMask;
+	private List<K> drainedKeys = new ArrayList<>();					//Used under the lock
+	private StatsCounter statsCounter;									//Null unless statistics are recorded
+	private int capacity;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public ReadBufferedAlgoCacheImpl(int size, IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> algorithm)
+	{
+		this(size, algorithm, false);
+	}
+
+	/*
+	 * Parameters:
+	 * size - number of pages
+	 * algorithm - creates the cache which replaces pages, for example LRUAlgoCacheImpl::new. It is only used under the lock
+	 * recordStats - whether to count hits, misses and evictions for getStats. Hits are counted when they happen, not when they are drained
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ReadBufferedAlgoCacheImpl(int size, IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> algorithm, boolean recordStats)
+	{
+		int stripes = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()) * 2 - 1);	//Rounded up to a power of two
+
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		this.capacity = (size > 0) ? size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.algorithm = algorithm.apply(capacity);
+		entries = new ConcurrentHashMap<>(capacity);
+		readBuffers = new ReadBuffer[stripes];
+		stripeMask = stripes - 1;
+
+		for(int i = 0; i < stripes; i++)
+		{
+			readBuffers[i] = new ReadBuffer<>();
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * The algorithm learns about the hits later, when the read buffers are drained
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(K key:keys)
+		{
+			valuesToReturn.add(getValue(key));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of getElement, which writes the values into the given array and allocates nothing
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+
+	private V getValue(K key)
+	{
+		CacheEntry<K, V> entry = entries.get(key);
+
+		if(entry == null)
+		{
+			if(statsCounter != null)
+				statsCounter.recordMiss();
+
+			return null;
+		}
+
+		if(!readBuffers[stripe()].offer(key) && lock.tryLock())
+		{
+			try
+			{
+				drainReadBuffers();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordHit();
+
+		return entry.getValue();
+	}
+
+	//Threads keep their stripe, so the keys of a thread reach the algorithm in the order it read them
+	private int stripe()
+	{
+		long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+
+		return (int) (id ^ (id >>> 32)) & stripeMask;
+	}
+
+	//Gives the hits recorded in all the buffers to the algorithm, in one getElement
+	private void drainReadBuffers()
+	{
+		for(ReadBuffer<K> readBuffer:readBuffers)
+		{
+			readBuffer.drainTo(drainedKeys);
+		}
+
+		if(!drainedKeys.isEmpty())
+		{
+			algorithm.getElement(drainedKeys);								//Keys replaced meanwhile are simply not found
+			drainedKeys.clear();
+		}
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		lock.lock();
+		try
+		{
+			drainReadBuffers();
+
+			while (keysIterator.hasNext() && valuesIterator.hasNext())
+			{
+				valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		return valuesToReturn;
+	}
+
+	//A new value gets a new entry, so readers which don't take the lock see it through the map
+	private V putValue(K key, V value)
+	{
+		CacheEntry<K, V> entry = new CacheEntry<>(key, value);
+		List<CacheEntry<K, V>> replacedEntries = new ArrayList<>();
+		V replacedValue = null;
+		boolean kept = true;
+
+		algorithm.putElement(Collections.singletonList(key), Collections.singletonList(entry), replacedEntries);
+
+		for(CacheEntry<K, V> replacedEntry:replacedEntries)
+		{
+			entries.remove(replacedEntry.getKey());
+			kept &= replacedEntry != entry;									//A page heavier than the whole cache replaces itself
+
+			if(statsCounter != null)
+				statsCounter.recordEviction();
+
+			if(replacedValue == null)
+				replacedValue = replacedEntry.getValue();
+		}
+
+		if(kept)
+			entries.put(key, entry);
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return replacedValue;
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		lock.lock();
+		try
+		{
+			drainReadBuffers();
+			algorithm.removeElement(keys);
+
+			for(K key:keys)
+			{
+				if(entries.remove(key) != null && statsCounter != null)
+					statsCounter.recordRemove();
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(entries.size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(entries.size());
+	}
+
+	@Override
+	public String toString()
+	{
+		lock.lock();
+		try
+		{
+			return "ReadBufferedAlgoCacheImpl [cache = " + algorithm + ", capacity=" + capacity + "]";
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.hit.algorithm;
+
+//Why a page left the cache, or why its value was replaced
+public enum RemovalCause
+{
+	EVICTED,						//The algorithm replaced it to make room for another page
+	REPLACED,						//A put gave its key a new value, the page itself stays
+	EXPLICIT,						//removeElement removed it
+	EXPIRED							//It lived longer than the cache allows
+}
@@ -0,0 +1,12 @@
+package com.hit.algorithm;
+
+/*
+ * Gets the pages which leave a cache, for example to write dirty pages back.
+ * A cache calls its listener on the thread which removed the page, while it performs the operation,
+ * so a slow listener should be wrapped in an AsyncRemovalListener.
+ */
+@FunctionalInterface
+public interface RemovalListener<K,V>
+{
+	public void onRemoval(RemovalNotification<K, V> notification);
+}
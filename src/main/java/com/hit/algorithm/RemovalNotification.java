@@ -0,0 +1,38 @@
+package com.hit.algorithm;
+
+//A page which left the cache, as reported to a RemovalListener
+public final class RemovalNotification<K,V>
+{
+	private final K key;
+	private final V value;
+	private final RemovalCause cause;
+
+	public RemovalNotification(K key, V value, RemovalCause cause)
+	{
+		this.key = key;
+		this.value = value;
+		this.cause = cause;
+	}
+
+	public K getKey()
+	{
+		return key;
+	}
+
+	//The value the page had, for REPLACED the value before the put
+	public V getValue()
+	{
+		return value;
+	}
+
+	public RemovalCause getCause()
+	{
+		return cause;
+	}
+
+	@Override
+	public String toString()
+	{
+		return key + "=" + value + " (" + cause + ")";
+	}
+}
@@ -0,0 +1,320 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Approximate LRU or MFU for very large capacities. Instead of keeping the pages in order, which costs a linked node per page,
+ * every page has a single int: the time it was last used (LRU) or its use counter (MFU). To replace a page, a few pages are
+ * picked at random and the least recently used (or most frequently used) of them is replaced.
+ *
+ * The pages live in slots found through a SlotIndex, so a page costs its slot in three arrays and in the hash table,
+ * with no object of its own. The pages are kept in the first slots, so the random picks always land on a page.
+ * More samples get closer to the exact algorithm: with 5 samples the replaced page is, on average,
+ * older than five sixths of the pages, and with 10 older than ten elevenths.
+ *
+ * Times are counted in uses of the cache and compared by age, so the 32 bit clock may wrap around, as long as no page
+ * stays unused for more than about 4 billion uses.
+ */
+public class SampledAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	public enum Policy
+	{
+		LRU,
+		MFU
+	}
+
+	private SlotIndex<K> index;
+	private Object[] values;
+	private int[] usage;										//Time of last use for LRU, use counter for MFU
+	private int size;
+	private int capacity;
+	private Policy policy;
+	private int samples;
+	private int clock;
+	private long randomState = 0x9E3779B97F4A7C15L;
+	private StatsCounter statsCounter;							//Null unless statistics are recorded
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+	private static final int DEFAULT_SAMPLES = 5;
+
+	public SampledAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	//Approximate LRU with 5 samples
+	public SampledAlgoCacheImpl(int size)
+	{
+		this(size, Policy.LRU, DEFAULT_SAMPLES, false);
+	}
+
+	/*
+	 * Parameters:
+	 * size - number of pages
+	 * policy - which page of the samples is replaced
+	 * samples - number of pages picked at random to choose the replaced page from
+	 * recordStats - whether to count hits, misses and evictions for getStats
+	 */
+	public SampledAlgoCacheImpl(int size, Policy policy, int samples, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		this.policy = policy;
+		this.samples = (samples > 0) ? samples : DEFAULT_SAMPLES;
+		index = new SlotIndex<>(capacity);
+		values = new Object[capacity];
+		usage = new int[capacity];
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(K key:keys)
+		{
+			valuesToReturn.add(getValue(key));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of getElement, which writes the values into the given array and allocates nothing
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+
+	//Returns the value of a single key, or null if it is not in the memory
+	private V getValue(K key)
+	{
+		int slot = index.find(key);
+
+		if(slot >= 0)
+		{
+			use(slot);
+
+			if(statsCounter != null)
+				statsCounter.recordHit();
+
+			return valueAt(slot);
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordMiss();
+
+		return null;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());			//Values which have been eliminated
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of putElement, which writes the replaced values into the given array and allocates nothing
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+
+	//Puts a single key, and returns the value of the page it replaced or null if there was no need to replace
+	private V putValue(K currentKey, V currentValue)
+	{
+		V currentValueToReplace = null;
+		int slot = index.find(currentKey);
+
+		if(slot >= 0)												//The key is present, update it and count it as used
+		{
+			this.values[slot] = currentValue;
+			use(slot);
+		}
+		else
+		{
+			if(size < capacity)
+				slot = size++;
+			else													//Memory is full and a page needs to be replaced
+			{
+				slot = findSlotToReplace();
+				currentValueToReplace = valueAt(slot);
+				index.remove(index.keyAt(slot));
+
+				if(statsCounter != null)
+					statsCounter.recordEviction();
+			}
+
+			index.insert(currentKey, slot);
+			this.values[slot] = currentValue;
+			usage[slot] = (policy == Policy.LRU) ? clock++ : 1;
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return currentValueToReplace;
+	}
+
+	private void use(int slot)
+	{
+		if(policy == Policy.LRU)
+			usage[slot] = clock++;
+		else if(usage[slot] != Integer.MAX_VALUE)
+			usage[slot]++;
+	}
+
+	/*
+	 * Picks the samples at random among the pages, which fill the first slots since the memory is full.
+	 * Returns:
+	 * slot of the least recently used of them for LRU, or of the most frequently used for MFU
+	 */
+	private int findSlotToReplace()
+	{
+		int victim = nextRandomSlot();
+		int candidate;
+
+		for(int i = 1; i < samples; i++)
+		{
+			candidate = nextRandomSlot();
+
+			if(policy == Policy.LRU ? Integer.compareUnsigned(clock - usage[candidate], clock - usage[victim]) > 0 : usage[candidate] > usage[victim])
+				victim = candidate;
+		}
+
+		return victim;
+	}
+
+	//xorshift, much cheaper than a shared Random and good enough to pick pages
+	private int nextRandomSlot()
+	{
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 7;
+		randomState ^= randomState << 17;
+
+		return (int) (((randomState >>> 32) * size) >>> 32);
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		for(K key:keys)
+		{
+			removeKey(key);
+		}
+	}
+
+	@Override
+	public void removeElement(K[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			removeKey(keys[i]);
+		}
+	}
+
+	//Moves the page of the last slot into the freed one, so the pages stay in the first slots
+	private void removeKey(K key)
+	{
+		int slot = index.remove(key);
+		K lastKey;
+
+		if(slot >= 0)
+		{
+			size--;
+
+			if(slot != size)
+			{
+				lastKey = index.keyAt(size);
+				index.remove(lastKey);
+				index.insert(lastKey, slot);
+				values[slot] = values[size];
+				usage[slot] = usage[size];
+			}
+
+			values[size] = null;
+
+			if(statsCounter != null)
+				statsCounter.recordRemove();
+		}
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(size);
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(size);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int slot)
+	{
+		return (V) values[slot];
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<K, V> cache = new LinkedHashMap<>();
+		Map<K, Integer> status = new LinkedHashMap<>();
+
+		for(int slot = 0; slot < size; slot++)
+		{
+			cache.put(index.keyAt(slot), valueAt(slot));
+			status.put(index.keyAt(slot), (policy == Policy.LRU) ? clock - usage[slot] : usage[slot]);
+		}
+
+		return "SampledAlgoCacheImpl [cache = " + cache + ", capacity=" + capacity + ", policy=" + policy + ", samples=" + samples
+				+ "]    [items " + ((policy == Policy.LRU) ? "age" : "use counter") + ": " + status + "]";
+	}
+}
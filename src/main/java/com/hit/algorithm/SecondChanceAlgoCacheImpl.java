@@ -1,9 +1,11 @@
 package com.hit.algorithm;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -12,6 +14,10 @@ public class SecondChanceAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	private Map<K,V> virtualMemory;
 	private Map<K,Boolean> referenceBit;
 	private int capacity;
+	private StatsCounter statsCounter;							//Null unless statistics are recorded
+	private Weigher<? super K, ? super V> weigher;				//Null when the capacity is a number of pages
+	private long maxWeight;
+	private long totalWeight;
 	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
 	
 	public SecondChanceAlgoCacheImpl()
@@ -21,6 +27,15 @@ public class SecondChanceAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	
 	public SecondChanceAlgoCacheImpl(int size)
 	{
+		this(size, false);
+	}
+	
+	//recordStats - whether to count hits, misses and evictions for getStats
+	public SecondChanceAlgoCacheImpl(int size, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+		
 		if(size>0)
 		{
 			this.capacity = size;
@@ -32,6 +47,24 @@ public class SecondChanceAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 			referenceBit = new HashMap<K, Boolean>(VIRTUAL_MEMORY_DEFAULT_SIZE);
 	}
 	
+	/*
+	 * A cache whose capacity is a total weight instead of a number of pages.
+	 * Parameters:
+	 * maxWeight - the total weight of all the pages together
+	 * weigher - gives the weight of every page, for example its size in bytes
+	 */
+	public SecondChanceAlgoCacheImpl(long maxWeight, Weigher<? super K, ? super V> weigher)
+	{
+		this(maxWeight, weigher, false);
+	}
+	
+	public SecondChanceAlgoCacheImpl(long maxWeight, Weigher<? super K, ? super V> weigher, boolean recordStats)
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE, recordStats);
+		this.weigher = weigher;
+		this.maxWeight = (maxWeight > 0) ? maxWeight : VIRTUAL_MEMORY_DEFAULT_SIZE;
+	}
+	
 	/*
 	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key. 
 	 * In addition performs the relevant cache algorithm
@@ -43,69 +76,227 @@ public class SecondChanceAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	@Override
 	public List<V> getElement(List<K> keys)
 	{
-		List<V> valuesToReturn = new LinkedList<>();
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
 		
 		for(K key:keys)									//For each key on the given list
 		{
-			if(virtualMemory.containsKey(key))			//If the key is in the memory already
-			{
-				V valueOfKey = virtualMemory.get(key);
-				valuesToReturn.add(valueOfKey);				//Add the value of this key to the returned values list	
-				referenceBit.put(key, true);			//change it's reference bit into true(1) because we addressed it
-			}
-			else
-				valuesToReturn.add(null);					//In case the key is not in the memory, add null to the returned list
+			valuesToReturn.add(getValue(key));			//Add the value of this key, or null if it is not in the memory
 		}
 		
 		return valuesToReturn;								
 	}
 	
+	//Bulk version of getElement, which writes the values into the given array and allocates nothing
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+	
+	//Returns the value of a single key, or null if it is not in the memory
+	private V getValue(K key)
+	{
+		V valueOfKey = virtualMemory.get(key);
+		
+		if(valueOfKey != null || virtualMemory.containsKey(key))	//If the key is in the memory already
+		{
+			referenceBit.put(key, true);			//change it's reference bit into true(1) because we addressed it
+			
+			if(statsCounter != null)
+				statsCounter.recordHit();
+		}
+		else if(statsCounter != null)
+			statsCounter.recordMiss();
+		
+		return valueOfKey;
+	}
+	
 	/*
 	 * Associates the specified value with the specified key in this cache according to the current algorithm
 	 * Parameters:
 	 * key - with which the specified value is to be associated
 	 * value - to be associated with the specified key
 	 * Returns:
-	 * return the value of the element which need to be replaced
+	 * return the value of the element which need to be replaced.
+	 * When the capacity is a weight, a single page may replace several, and only the first of them is returned for it
 	 */
 	@Override
 	public List<V> putElement(List<K> keys, List<V> values)
 	{
-		List<V> valuesToReturn = new LinkedList<>();			//Values which have been eliminated
-		K currentKey,	currentKeyToReplace;
-		V currentValue,	currentValueToReplace;
+		return putValues(keys, values, (weigher != null) ? new ArrayList<>() : null);
+	}
+	
+	//The same, and adds the values of all the replaced pages to evictedValues, also the ones a weighted page replaced after its first
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values, List<V> evictedValues)
+	{
+		return putValues(keys, values, evictedValues);
+	}
+	
+	//evictedValues may be null unless the capacity is a weight
+	private List<V> putValues(List<K> keys, List<V> values, List<V> evictedValues)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());			//Values which have been eliminated
 		Iterator<K> keysIterator = keys.iterator();
 		Iterator<V> valuesIterator = values.iterator();
+		V replacedValue;
+		int evictedCount;
 		
 		while (keysIterator.hasNext() && valuesIterator.hasNext())
 		{
-				currentValueToReplace = null;
-				currentKey = keysIterator.next();
-				currentValue = valuesIterator.next();
+			if(weigher != null)
+			{
+				evictedCount = evictedValues.size();
+				putWeightedValue(keysIterator.next(), valuesIterator.next(), evictedValues);
+				valuesToReturn.add((evictedValues.size() > evictedCount) ? evictedValues.get(evictedCount) : null);	//The first page it replaced
+			}
+			else
+			{
+				replacedValue = putValue(keysIterator.next(), valuesIterator.next());
+				valuesToReturn.add(replacedValue); 	//Adding a value that was replaced' or null if there was no need to replace
 				
-				//If the key is present in the memory, make it's reference true because we addressed it
-				if(virtualMemory.containsKey(currentKey))
-				{
-					referenceBit.put(currentKey, true);
-				}
-				else
+				if(replacedValue != null && evictedValues != null)
+					evictedValues.add(replacedValue);
+			}
+		}
+		
+		return valuesToReturn;
+	}
+	
+	//Bulk version of putElement, which writes the replaced values into the given array. It allocates a map entry
+	//for every key it inserts, and one for every page which gets a second chance while a page to replace is found.
+	//Not available when the capacity is a weight, since a page may replace more pages than the array has room for
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		if(weigher != null)
+			throw new UnsupportedOperationException("A weighted cache may replace several pages per key, use putElement with a list of evicted values");
+		
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+	
+	//Puts a single key, and returns the value of the page it replaced or null if there was no need to replace
+	private V putValue(K currentKey, V currentValue)
+	{
+		K currentKeyToReplace;
+		V currentValueToReplace = null;
+		
+		//If the key is present in the memory, make it's reference true because we addressed it
+		if(virtualMemory.containsKey(currentKey))
+		{
+			referenceBit.put(currentKey, true);
+		}
+		else
+		{
+			if(virtualMemory.size() == capacity)		//Memory is full and a page needs to be replaced
+			{
+				currentKeyToReplace = findKeyToReplace();
+				currentValueToReplace = virtualMemory.remove(currentKeyToReplace);
+				referenceBit.remove(currentKeyToReplace);
+				
+				if(statsCounter != null)
+					statsCounter.recordEviction();
+			}
+			
+			virtualMemory.put(currentKey, currentValue);
+			referenceBit.put(currentKey, false);
+		}
+		
+		if(statsCounter != null)
+			statsCounter.recordPut();
+		
+		return currentValueToReplace;
+	}
+	
+	/*
+	 * Puts pages which may never be used, such as prefetched ones. A new page already starts with its reference bit cleared,
+	 * so unless it is used it is replaced the first time the search reaches it, before any page which was used.
+	 * Unlike putElement, a key already in the cache is left as it is, without setting its reference bit.
+	 * A cache whose capacity is a weight puts them as putElement does.
+	 * Returns:
+	 * the values of the pages which were replaced, or null for each key which did not replace a page
+	 */
+	@Override
+	public List<V> putElementWithLowPriority(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+		K currentKey;
+		V currentValue;
+		
+		if(weigher != null)
+			return putElement(keys, values);
+		
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			currentKey = keysIterator.next();
+			currentValue = valuesIterator.next();
+			
+			if(virtualMemory.containsKey(currentKey))
+				valuesToReturn.add(null);
+			else
+				valuesToReturn.add(putValue(currentKey, currentValue));
+		}
+		
+		return valuesToReturn;
+	}
+	
+	/*
+	 * Puts a single key in a weighted cache, first replacing pages by second chance until it fits.
+	 * A page heavier than the whole cache is not kept, and is reported as replaced itself.
+	 * Parameters:
+	 * evictedValues - to which the values of all the replaced pages are added
+	 */
+	private void putWeightedValue(K currentKey, V currentValue, List<V> evictedValues)
+	{
+		K currentKeyToReplace;
+		V currentValueToReplace;
+		int weight;
+		
+		if(virtualMemory.containsKey(currentKey))
+		{
+			referenceBit.put(currentKey, true);
+		}
+		else
+		{
+			weight = weigher.weigh(currentKey, currentValue);
+			
+			if(weight > maxWeight)
+			{
+				evictedValues.add(currentValue);
+				
+				if(statsCounter != null)
+					statsCounter.recordEviction();
+			}
+			else
+			{
+				while(totalWeight + weight > maxWeight)		//Replace pages until the page fits
 				{
-					if(virtualMemory.size() == capacity)		//Memory is full and a page needs to be replaced
-					{
-						currentKeyToReplace = findKeyToReplace();
-						currentValueToReplace = virtualMemory.get(currentKeyToReplace);
-						virtualMemory.remove(currentKeyToReplace);
-						referenceBit.remove(currentKeyToReplace);
-					}
+					currentKeyToReplace = findKeyToReplace();
+					currentValueToReplace = virtualMemory.remove(currentKeyToReplace);
+					referenceBit.remove(currentKeyToReplace);
+					totalWeight -= weigher.weigh(currentKeyToReplace, currentValueToReplace);
+					evictedValues.add(currentValueToReplace);
 					
-					virtualMemory.put(currentKey, currentValue);
-					referenceBit.put(currentKey, false);
+					if(statsCounter != null)
+						statsCounter.recordEviction();
 				}
 				
-				valuesToReturn.add(currentValueToReplace); 		//Adding a value that was replaced' or null if there was no need to replace
+				virtualMemory.put(currentKey, currentValue);
+				referenceBit.put(currentKey, false);
+				totalWeight += weight;
+			}
 		}
 		
-		return valuesToReturn;
+		if(statsCounter != null)
+			statsCounter.recordPut();
 	}
 	
 	/*
@@ -115,47 +306,35 @@ public class SecondChanceAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	 */
 	private K findKeyToReplace()
 	{
-		V currentValue;
-		K currentKey;
-		List<K> keysToBeReinserted = new LinkedList<>();
-		List<V> valuesToBeReinserted = new LinkedList<>();
-		Iterator<K> keysIterator = virtualMemory.keySet().iterator();
-
-		while(keysIterator.hasNext())
+		int secondChances = 0;
+		
+		for(K currentKey:virtualMemory.keySet())
 		{
-			currentKey=keysIterator.next();
+			if(referenceBit.get(currentKey) == false)		//If the reference bit is false, this is the page to replace
+				break;
 			
-			if(referenceBit.get(currentKey) == true)		//If the reference bit is true
-			{
-				referenceBit.put(currentKey, false);		//Make it false (as a second chance for the entry)
-				currentValue = virtualMemory.get(currentKey);
-				keysToBeReinserted.add(currentKey);			//Can't insert or omit while iterating on a Virtual Memory map
-				valuesToBeReinserted.add(currentValue);		//So they will be added with the 'false' Reference 
-			}
-			else											//If the reference bit is false
-			{
-				reInsertToMemory(keysToBeReinserted, valuesToBeReinserted);	//Re-insert the pages which were changed from true to false before
-				return currentKey;
-			}
-		}									//Given we've iterated over all the list, they were all true's, we 
-											//changed them to false and now will take the first one
-		reInsertToMemory(keysToBeReinserted, valuesToBeReinserted);
+			referenceBit.put(currentKey, false);			//Make it false (as a second chance for the entry)
+			secondChances++;
+		}
+		
+		moveToEnd(secondChances);		//Given they were all true's, they all move in the same order and the first one is taken
 		
 		return virtualMemory.keySet().iterator().next();
 	}
 	
-	//Can't insert or omit while iterating on a Virtual Memory map, so re-adding objects to the map after finished iterating
-	private void reInsertToMemory(List<K> keys,List<V> values)
+	//Can't insert or omit while iterating on a Virtual Memory map, so moving the pages which got a second chance after finished iterating.
+	//A LinkedHashMap can only move an entry by removing and putting it again, so every page moved allocates a new map entry
+	private void moveToEnd(int count)
 	{
-		K currentKey;
-		V currentValue;
+		Iterator<Map.Entry<K, V>> firstEntry;
+		Map.Entry<K, V> entry;
 		
-		for(int i=0; i < keys.size(); i++)
+		for(int i = 0; i < count; i++)
 		{
-			currentKey = keys.get(i);
-			currentValue = values.get(i);
-			virtualMemory.remove(currentKey,currentValue);
-			virtualMemory.put(currentKey,currentValue);
+			firstEntry = virtualMemory.entrySet().iterator();
+			entry = firstEntry.next();
+			firstEntry.remove();
+			virtualMemory.put(entry.getKey(), entry.getValue());
 		}
 	}
 	
@@ -169,14 +348,125 @@ public class SecondChanceAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
 	{
 		for(K key:keys)
 		{
-			virtualMemory.remove(key);
+			removeKey(key);
+		}
+	}
+	
+	@Override
+	public void removeElement(K[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			removeKey(keys[i]);
+		}
+	}
+	
+	private void removeKey(K key)
+	{
+		if(referenceBit.remove(key) != null)
+		{
+			if(weigher != null)
+				totalWeight -= weigher.weigh(key, virtualMemory.get(key));
+			
+			if(statsCounter != null)
+				statsCounter.recordRemove();
+		}
+		
+		virtualMemory.remove(key);
+	}
+
+	/*
+	 * Saves the pages to a file in the order they are checked for replacement, each with its reference bit,
+	 * so readSnapshot can restore them after a restart.
+	 * Parameters:
+	 * file - to write, replacing it if it exists
+	 * keyCodec - writes the keys
+	 * valueCodec - writes the values
+	 */
+	public void writeSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		try (SnapshotWriter writer = new SnapshotWriter(file, SnapshotWriter.SECOND_CHANCE, virtualMemory.size()))
+		{
+			for(Map.Entry<K, V> entry:virtualMemory.entrySet())
+			{
+				writer.write(keyCodec, entry.getKey());
+				writer.write(valueCodec, entry.getValue());
+				writer.writeByte(referenceBit.get(entry.getKey()) ? (byte) 1 : 0);
+			}
+		}
+	}
+	
+	/*
+	 * Replaces the pages with the ones saved by writeSnapshot, in the same order and with the same reference bits,
+	 * so pages are replaced just as they would have been. A snapshot of a larger cache loses the pages second chance replaces first.
+	 * Statistics are not changed, and if the file can not be read the cache is left empty.
+	 * Parameters:
+	 * file - to read
+	 * keyCodec - reads the keys
+	 * valueCodec - reads the values
+	 */
+	public void readSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		K key;
+		V value;
+		
+		clear();
+		
+		try (SnapshotReader reader = new SnapshotReader(file, SnapshotWriter.SECOND_CHANCE))
+		{
+			for(int i = reader.count(); i > 0; i--)
+			{
+				key = reader.read(keyCodec);
+				value = reader.read(valueCodec);
+				virtualMemory.put(key, value);
+				referenceBit.put(key, reader.readByte() != 0);
+				
+				if(weigher != null)
+					totalWeight += weigher.weigh(key, value);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			clear();
+			throw e;
+		}
+		
+		while((weigher == null) ? virtualMemory.size() > capacity : totalWeight > maxWeight)
+		{
+			key = findKeyToReplace();
+			value = virtualMemory.remove(key);
 			referenceBit.remove(key);
+			
+			if(weigher != null)
+				totalWeight -= weigher.weigh(key, value);
 		}
 	}
 	
+	private void clear()
+	{
+		virtualMemory.clear();
+		referenceBit.clear();
+		totalWeight = 0;
+	}
+	
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(virtualMemory.size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(virtualMemory.size());
+	}
+	
 	@Override
 	public String toString() 
 	{
+		if(weigher != null)
+			return "SecondChanceAlgoCacheImpl [cache = " + virtualMemory + ", weight=" + totalWeight + ", maxWeight=" + maxWeight + "]    [items status: " + referenceBit + "]";
+		
 		return "SecondChanceAlgoCacheImpl [cache = " + virtualMemory + ", capacity=" + capacity + "]    [items status: " + referenceBit + "]";
 	}
 }
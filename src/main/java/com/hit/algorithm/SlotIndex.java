@@ -0,0 +1,129 @@
+package com.hit.algorithm;
+
+import java.util.Arrays;
+
+/*
+ * Open addressing index from a key to the fixed slot which holds it.
+ * Keys are kept in a per-slot array and the hash table stores only slot numbers (plus one, so zero means empty),
+ * which lets array based caches find their slots without allocating a node per entry.
+ * Collisions are resolved with linear probing and removals shift the following entries back instead of leaving tombstones.
+ */
+final class SlotIndex<K>
+{
+	private final Object[] keys;
+	private final int[] table;
+	private final int mask;
+
+	SlotIndex(int slots)
+	{
+		int tableSize = Integer.highestOneBit(Math.max(slots, 2) * 2 - 1) << 1;	//At least twice the slots, rounded to a power of two
+
+		keys = new Object[slots];
+		table = new int[tableSize];
+		mask = tableSize - 1;
+	}
+
+	//Spreads the hash code so keys with close hash codes (like page numbers) do not form long probe sequences
+	private int home(Object key)
+	{
+		int hash = key.hashCode() * 0x9E3779B9;
+
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/*
+	 * Returns:
+	 * the slot which holds the key, or -1 if the key is not in the index
+	 */
+	int find(K key)
+	{
+		int position = home(key);
+		int slot;
+
+		while((slot = table[position]) != 0)
+		{
+			if(keys[slot - 1].equals(key))
+				return slot - 1;
+
+			position = (position + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	//Maps a key which is not in the index yet to the given free slot
+	void insert(K key, int slot)
+	{
+		int position = home(key);
+
+		while(table[position] != 0)
+		{
+			position = (position + 1) & mask;
+		}
+
+		keys[slot] = key;
+		table[position] = slot + 1;
+	}
+
+	/*
+	 * Removes a key from the index.
+	 * Returns:
+	 * the slot which held the key, or -1 if the key was not in the index
+	 */
+	int remove(K key)
+	{
+		int position = home(key);
+		int slot;
+
+		while((slot = table[position]) != 0)
+		{
+			if(keys[slot - 1].equals(key))
+			{
+				keys[slot - 1] = null;
+				shiftBack(position);
+				return slot - 1;
+			}
+
+			position = (position + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	//Closes the gap at the given position by moving back every following entry whose probe sequence passes through it
+	private void shiftBack(int gap)
+	{
+		int position = gap;
+		int entryHome;
+
+		while(true)
+		{
+			position = (position + 1) & mask;
+
+			if(table[position] == 0)
+				break;
+
+			entryHome = home(keys[table[position] - 1]);
+
+			if(gap <= position ? (gap < entryHome && entryHome <= position) : (gap < entryHome || entryHome <= position))
+				continue;														//The entry is still reachable from its home position
+
+			table[gap] = table[position];
+			gap = position;
+		}
+
+		table[gap] = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	K keyAt(int slot)
+	{
+		return (K) keys[slot];
+	}
+
+	void clear()
+	{
+		Arrays.fill(keys, null);
+		Arrays.fill(table, 0);
+	}
+}
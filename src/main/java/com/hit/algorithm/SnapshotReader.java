@@ -0,0 +1,125 @@
+package com.hit.algorithm;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//Reads a snapshot file written by SnapshotWriter through a large buffer
+final class SnapshotReader implements Closeable
+{
+	private FileChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(SnapshotWriter.BUFFER_SIZE);
+	private int count;
+
+	/*
+	 * Opens a snapshot and checks its header.
+	 * Parameters:
+	 * file - to read
+	 * algorithm - which restores the snapshot, it must be the one which took it
+	 */
+	SnapshotReader(Path file, byte algorithm) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		buffer.flip();
+
+		try
+		{
+			if(readInt() != SnapshotWriter.MAGIC)
+				throw new IOException(file + " is not a cache snapshot");
+			if(readByte() != SnapshotWriter.VERSION)
+				throw new IOException(file + " is a snapshot of another version");
+			if(readByte() != algorithm)
+				throw new IOException(file + " is a snapshot of another algorithm");
+
+			count = readInt();
+
+			if(count < 0)
+				throw new IOException(file + " has a negative number of pages");
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	//Number of pages in the snapshot
+	int count()
+	{
+		return count;
+	}
+
+	byte readByte() throws IOException
+	{
+		if(!buffer.hasRemaining())
+			fill();
+
+		return buffer.get();
+	}
+
+	int readInt() throws IOException
+	{
+		while(buffer.remaining() < Integer.BYTES)
+		{
+			fill();
+		}
+
+		return buffer.getInt();
+	}
+
+	//Reads a key or a value, reading more of the file and retrying while it is cut at the end of the buffer
+	<T> T read(Codec<T> codec) throws IOException
+	{
+		int start = buffer.position();
+
+		while(true)
+		{
+			try
+			{
+				return codec.read(buffer);
+			}
+			catch (BufferUnderflowException e)
+			{
+				buffer.position(start);
+				fill();
+				start = buffer.position();
+			}
+		}
+	}
+
+	//Keeps the unread bytes and reads more after them, growing the buffer if they fill it. Throws EOFException at the end of the file.
+	private void fill() throws IOException
+	{
+		ByteBuffer larger;
+
+		if(buffer.position() == 0 && buffer.limit() == buffer.capacity())
+		{
+			larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+			larger.put(buffer);
+			buffer = larger;
+		}
+		else
+			buffer.compact();
+
+		try
+		{
+			if(channel.read(buffer) < 0)
+				throw new EOFException("The snapshot ends in the middle of a page");
+		}
+		finally
+		{
+			buffer.flip();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
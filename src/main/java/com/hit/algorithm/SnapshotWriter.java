@@ -0,0 +1,109 @@
+package com.hit.algorithm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Writes a snapshot file of a cache through a large buffer, so millions of pages cost a few hundred writes.
+ * The file starts with a header naming the algorithm it was taken from, see SnapshotReader.
+ */
+final class SnapshotWriter implements Closeable
+{
+	static final int MAGIC = 0x4D4D5553;							//"MMUS"
+	static final byte VERSION = 2;									//Since LRU snapshots keep the pages put with low priority apart
+	static final byte LRU = 1;
+	static final byte SECOND_CHANCE = 2;
+	static final byte MFU = 3;
+	static final int BUFFER_SIZE = 1 << 20;
+
+	private FileChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/*
+	 * Parameters:
+	 * file - to write, replacing it if it exists
+	 * algorithm - which takes the snapshot, one of the constants of this class
+	 * count - number of pages the snapshot holds
+	 */
+	SnapshotWriter(Path file, byte algorithm, int count) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		buffer.putInt(MAGIC);
+		buffer.put(VERSION);
+		buffer.put(algorithm);
+		buffer.putInt(count);
+	}
+
+	void writeByte(byte value) throws IOException
+	{
+		if(!buffer.hasRemaining())
+			flush();
+
+		buffer.put(value);
+	}
+
+	void writeInt(int value) throws IOException
+	{
+		if(buffer.remaining() < Integer.BYTES)
+			flush();
+
+		buffer.putInt(value);
+	}
+
+	//Writes a key or a value, flushing the buffer and retrying if it does not fit, and growing it if it does not fit even empty
+	<T> void write(Codec<? super T> codec, T value) throws IOException
+	{
+		int start = buffer.position();
+
+		while(true)
+		{
+			try
+			{
+				codec.write(value, buffer);
+
+				return;
+			}
+			catch (BufferOverflowException e)
+			{
+				buffer.position(start);
+
+				if(start > 0)
+					flush();
+				else
+					buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+
+				start = 0;
+			}
+		}
+	}
+
+	private void flush() throws IOException
+	{
+		buffer.flip();
+
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.hit.algorithm;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * The counters behind CacheStats. Caches which don't record statistics keep no counter at all,
+ * and the counters can be read and reset from another thread while the cache is in use.
+ */
+final class StatsCounter
+{
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder puts = new LongAdder();
+	private final LongAdder removes = new LongAdder();
+
+	void recordHit()
+	{
+		hits.increment();
+	}
+
+	void recordMiss()
+	{
+		misses.increment();
+	}
+
+	void recordEviction()
+	{
+		evictions.increment();
+	}
+
+	void recordPut()
+	{
+		puts.increment();
+	}
+
+	void recordRemove()
+	{
+		removes.increment();
+	}
+
+	CacheStats snapshot(long size)
+	{
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), puts.sum(), removes.sum(), size);
+	}
+
+	//Counts that arrive while resetting go to either the returned snapshot or the next one, never lost
+	CacheStats snapshotAndReset(long size)
+	{
+		return new CacheStats(hits.sumThenReset(), misses.sumThenReset(), evictions.sumThenReset(),
+				puts.sumThenReset(), removes.sumThenReset(), size);
+	}
+}
@@ -0,0 +1,376 @@
+package com.hit.algorithm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+ * Two level virtual memory: pages live in RAM, managed by the chosen algorithm, and the pages the algorithm
+ * replaces are swapped out to a memory-mapped swap file instead of being lost. A page which misses in RAM
+ * but is in the swap file is swapped back in, and getElement returns null only when the page is in neither.
+ *
+ * The swap file is split into fixed slots of one page each. Pages are copied straight between their buffer
+ * and their slot in the mapping, with no intermediate arrays and no system call per page. When all the slots
+ * are taken, the page which was swapped out first is dropped to make room, and putElement returns it.
+ *
+ * Example: new SwapAlgoCacheImpl<Integer>(1000, 100000, 4096, Paths.get("pages.swap"), MFUAlgoCacheImpl::new)
+ */
+public class SwapAlgoCacheImpl<K> implements IAlgoCache<K, ByteBuffer>, Closeable
+{
+	private static final int MAX_SLAB_BYTES = 1 << 30;
+	private IAlgoCache<K, CacheEntry<K, ByteBuffer>> algorithm;
+	private Map<K, CacheEntry<K, ByteBuffer>> residentPages;
+	private LinkedHashMap<K, Integer> swappedPages;						//Slot of every swapped out page, in the order they were swapped out
+	private FileChannel swapFile;
+	private MappedByteBuffer[] slabs;
+	private int slotsPerSlab;
+	private int[] pageLengths;
+	private int[] freeSlots;
+	private int freeSlotsCount;
+	private int pageSize;
+	private int ramCapacity;
+	private int swapCapacity;
+	private StatsCounter ramStats;										//Null unless statistics are recorded
+	private StatsCounter swapStats;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+	private static final int DEFAULT_PAGE_SIZE = 4096;
+
+	/*
+	 * Parameters:
+	 * ramSize - number of pages in RAM
+	 * swapSize - number of pages in the swap file
+	 * pageSize - size of a single page in bytes
+	 * swapFile - path of the swap file, created or truncated
+	 * algorithm - creates the cache which decides which page to swap out, for example LRUAlgoCacheImpl::new
+	 */
+	public SwapAlgoCacheImpl(int ramSize, int swapSize, int pageSize, Path swapFile, IntFunction<? extends IAlgoCache<K, CacheEntry<K, ByteBuffer>>> algorithm) throws IOException
+	{
+		this(ramSize, swapSize, pageSize, swapFile, algorithm, false);
+	}
+
+	//recordStats - whether to count hits, misses and evictions of every level for getRamStats and getSwapStats
+	public SwapAlgoCacheImpl(int ramSize, int swapSize, int pageSize, Path swapFile, IntFunction<? extends IAlgoCache<K, CacheEntry<K, ByteBuffer>>> algorithm, boolean recordStats) throws IOException
+	{
+		long slabOffset = 0;
+		int slabSlots;
+
+		if(recordStats)
+		{
+			ramStats = new StatsCounter();
+			swapStats = new StatsCounter();
+		}
+
+		this.ramCapacity = (ramSize > 0) ? ramSize : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.swapCapacity = (swapSize > 0) ? swapSize : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.pageSize = (pageSize > 0) ? pageSize : DEFAULT_PAGE_SIZE;
+		this.algorithm = algorithm.apply(ramCapacity);
+		residentPages = new HashMap<>(ramCapacity);
+		swappedPages = new LinkedHashMap<>(swapCapacity);
+		slotsPerSlab = Math.max(1, MAX_SLAB_BYTES / this.pageSize);
+		slabs = new MappedByteBuffer[(swapCapacity - 1) / slotsPerSlab + 1];
+		pageLengths = new int[swapCapacity];
+		freeSlots = new int[swapCapacity];
+		this.swapFile = FileChannel.open(swapFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		try
+		{
+			for(int slab = 0; slab < slabs.length; slab++)
+			{
+				slabSlots = Math.min(slotsPerSlab, swapCapacity - slab * slotsPerSlab);
+				slabs[slab] = this.swapFile.map(FileChannel.MapMode.READ_WRITE, slabOffset, (long) slabSlots * this.pageSize);
+				slabOffset += (long) slabSlots * this.pageSize;
+			}
+		}
+		catch (IOException e)
+		{
+			this.swapFile.close();
+			throw e;
+		}
+
+		for(int slot = swapCapacity - 1; slot >= 0; slot--)
+		{
+			freeSlots[freeSlotsCount++] = slot;
+		}
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * Pages which are only in the swap file are swapped in, which may swap out other pages.
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the page of the key, or null if it is neither in RAM nor in the swap file
+	 */
+	@Override
+	public List<ByteBuffer> getElement(List<K> keys)
+	{
+		List<CacheEntry<K, ByteBuffer>> entries = algorithm.getElement(keys);
+		List<ByteBuffer> valuesToReturn = new ArrayList<>(entries.size());
+		Iterator<K> keysIterator = keys.iterator();
+		CacheEntry<K, ByteBuffer> entry;
+		K key;
+
+		for(CacheEntry<K, ByteBuffer> entryOfKey:entries)
+		{
+			key = keysIterator.next();
+			entry = (entryOfKey != null) ? entryOfKey : residentPages.get(key);	//A page swapped in earlier in this request is resident already
+
+			if(entry != null)
+			{
+				valuesToReturn.add(entry.getValue());
+
+				if(ramStats != null)
+					ramStats.recordHit();
+			}
+			else
+			{
+				valuesToReturn.add(swapIn(key));
+
+				if(ramStats != null)
+					ramStats.recordMiss();
+			}
+		}
+
+		return valuesToReturn;
+	}
+
+	//Moves a page from the swap file back to RAM. Returns null if the page is not in the swap file either.
+	private ByteBuffer swapIn(K key)
+	{
+		Integer slot = swappedPages.remove(key);
+		ByteBuffer page;
+
+		if(slot == null)
+		{
+			if(swapStats != null)
+				swapStats.recordMiss();
+
+			return null;
+		}
+
+		page = ByteBuffer.allocate(pageLengths[slot]);
+		page.put(slotView(slot, pageLengths[slot]));
+		page.flip();
+		freeSlots[freeSlotsCount++] = slot;
+
+		if(swapStats != null)
+			swapStats.recordHit();
+
+		putInRam(key, page);										//The slot was just freed, so a page this swaps out never drops another one
+
+		return page;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - page contents, at most pageSize bytes between its position and limit
+	 * Returns:
+	 * the page dropped from the swap file to make room, or null if no page left the cache
+	 */
+	@Override
+	public List<ByteBuffer> putElement(List<K> keys, List<ByteBuffer> values)
+	{
+		List<ByteBuffer> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<ByteBuffer> valuesIterator = values.iterator();
+		K currentKey;
+		ByteBuffer currentValue;
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			currentKey = keysIterator.next();
+			currentValue = valuesIterator.next();
+
+			if(currentValue.remaining() > pageSize)
+				throw new IllegalArgumentException("Page of " + currentValue.remaining() + " bytes does not fit in a slot of " + pageSize + " bytes");
+
+			removeFromSwap(currentKey);								//The swapped out copy is older than the new page
+			valuesToReturn.add(putInRam(currentKey, currentValue));
+
+			if(ramStats != null)
+				ramStats.recordPut();
+		}
+
+		return valuesToReturn;
+	}
+
+	/*
+	 * Puts a page in RAM, swapping out the pages the algorithm replaces: with a weighted capacity there may be several,
+	 * or the page itself if it is heavier than all of RAM.
+	 * Returns:
+	 * the first page dropped from the swap file, if any
+	 */
+	private ByteBuffer putInRam(K key, ByteBuffer page)
+	{
+		CacheEntry<K, ByteBuffer> entry = residentPages.get(key);
+		List<CacheEntry<K, ByteBuffer>> replacedEntries = new ArrayList<>();
+		ByteBuffer droppedPage = null, dropped;
+
+		if(entry != null)
+			entry.setValue(page);
+		else
+		{
+			entry = new CacheEntry<>(key, page);
+			residentPages.put(key, entry);
+		}
+
+		algorithm.putElement(Collections.singletonList(key), Collections.singletonList(entry), replacedEntries);
+
+		for(CacheEntry<K, ByteBuffer> replacedEntry:replacedEntries)
+		{
+			residentPages.remove(replacedEntry.getKey(), replacedEntry);
+
+			if(ramStats != null)
+				ramStats.recordEviction();
+
+			dropped = swapOut(replacedEntry.getKey(), replacedEntry.getValue());
+
+			if(droppedPage == null)
+				droppedPage = dropped;
+		}
+
+		return droppedPage;
+	}
+
+	/*
+	 * Writes a page replaced in RAM to a free slot of the swap file.
+	 * When there is no free slot, the page which was swapped out first is dropped and its slot is reused.
+	 * Returns:
+	 * a heap copy of the dropped page, or null if no page was dropped
+	 */
+	private ByteBuffer swapOut(K key, ByteBuffer page)
+	{
+		Iterator<Map.Entry<K, Integer>> oldestPage;
+		ByteBuffer droppedPage = null;
+		int slot;
+
+		if(freeSlotsCount > 0)
+			slot = freeSlots[--freeSlotsCount];
+		else
+		{
+			oldestPage = swappedPages.entrySet().iterator();
+			slot = oldestPage.next().getValue();
+			oldestPage.remove();
+			droppedPage = ByteBuffer.allocate(pageLengths[slot]);
+			droppedPage.put(slotView(slot, pageLengths[slot]));
+			droppedPage.flip();
+
+			if(swapStats != null)
+				swapStats.recordEviction();
+		}
+
+		pageLengths[slot] = page.remaining();
+		slotView(slot, page.remaining()).put(page.duplicate());			//Leaves the position of the page as it was
+		swappedPages.put(key, slot);
+
+		if(swapStats != null)
+			swapStats.recordPut();
+
+		return droppedPage;
+	}
+
+	//Returns whether the key had a swapped out page
+	private boolean removeFromSwap(K key)
+	{
+		Integer slot = swappedPages.remove(key);
+
+		if(slot == null)
+			return false;
+
+		freeSlots[freeSlotsCount++] = slot;
+
+		return true;
+	}
+
+	//A buffer over the first length bytes of the given slot of the mapping
+	private ByteBuffer slotView(int slot, int length)
+	{
+		ByteBuffer view = slabs[slot / slotsPerSlab].duplicate();
+		int offset = (slot % slotsPerSlab) * pageSize;
+
+		view.limit(offset + length).position(offset);
+
+		return view;
+	}
+
+	/*
+	 * Removes the mapping for the specified key from RAM and from the swap file, if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		algorithm.removeElement(keys);
+
+		for(K key:keys)
+		{
+			if(residentPages.remove(key) != null && ramStats != null)
+				ramStats.recordRemove();
+
+			if(removeFromSwap(key) && swapStats != null)
+				swapStats.recordRemove();
+		}
+	}
+
+	/*
+	 * Statistics of the cache as a whole: a hit is a page found in RAM or in the swap file,
+	 * and an eviction is a page dropped from the swap file.
+	 */
+	@Override
+	public CacheStats getStats()
+	{
+		return (ramStats == null) ? null : combine(getRamStats(), getSwapStats());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (ramStats == null) ? null : combine(ramStats.snapshotAndReset(residentPages.size()), swapStats.snapshotAndReset(swappedPages.size()));
+	}
+
+	private static CacheStats combine(CacheStats ram, CacheStats swap)
+	{
+		return new CacheStats(ram.getHits() + swap.getHits(), swap.getMisses(), swap.getEvictions(),
+				ram.getPuts(), ram.getRemoves() + swap.getRemoves(), ram.getSize() + swap.getSize());
+	}
+
+	//Statistics of RAM only: misses are looked up in the swap file, evictions are pages swapped out
+	public CacheStats getRamStats()
+	{
+		return (ramStats == null) ? null : ramStats.snapshot(residentPages.size());
+	}
+
+	//Statistics of the swap file only: lookups are the misses of RAM, puts are pages swapped out, evictions are pages dropped
+	public CacheStats getSwapStats()
+	{
+		return (swapStats == null) ? null : swapStats.snapshot(swappedPages.size());
+	}
+
+	//Closes the swap file. The mapping itself is released only when it is garbage collected.
+	@Override
+	public void close() throws IOException
+	{
+		swapFile.close();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SwapAlgoCacheImpl [ram = " + algorithm + ", capacity=" + ramCapacity + "]    [swap slots: " + swappedPages + ", capacity=" + swapCapacity + "]";
+	}
+}
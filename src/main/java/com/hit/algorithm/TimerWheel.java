@@ -0,0 +1,147 @@
+package com.hit.algorithm;
+
+import java.util.List;
+
+import com.hit.algorithm.ExpiringAlgoCacheImpl.TimedEntry;
+
+/*
+ * A hierarchical timer wheel of expiration times. Each level is a ring of 64 buckets, and a bucket of a level
+ * spans 64 buckets of the level below it: about 1 millisecond, 67 milliseconds, 4.3 seconds, 4.6 minutes and 4.9 hours.
+ * An entry goes to the lowest level whose ring covers its remaining time, so scheduling and descheduling are O(1).
+ *
+ * Advancing the time empties only the buckets the time passed over: entries which expired are returned,
+ * and entries of a higher level which are due soon cascade down to a finer level. Every entry cascades
+ * at most once per level, so the cost of expiring is amortized O(1) per entry.
+ * The finest bucket of the current time holds entries due later in the same millisecond, so it keeps the earliest
+ * expiration time of its entries and is gone over only once that time came, not on every advance.
+ * Descheduling leaves that time as it was, which at worst costs one pass over the bucket which finds nothing due.
+ * Times are System.nanoTime style values, compared by their difference so they may wrap around.
+ */
+final class TimerWheel<K,V>
+{
+	private static final int BUCKETS = 64;
+	private static final int[] SHIFTS = {20, 26, 32, 38, 44};			//A bucket of level i spans 2^SHIFTS[i] nanoseconds
+	private final TimedEntry<K, V>[][] wheel;							//Every bucket is a circular list starting at a sentinel,
+																		//whose expiration time is the earliest of the bucket
+	private long currentTime;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	TimerWheel(long now)
+	{
+		currentTime = now;
+		wheel = new TimedEntry[SHIFTS.length][BUCKETS];
+
+		for(TimedEntry<K, V>[] level:wheel)
+			for(int bucket = 0; bucket < BUCKETS; bucket++)
+			{
+				level[bucket] = new TimedEntry<>(null, null);
+				level[bucket].previous = level[bucket];
+				level[bucket].next = level[bucket];
+			}
+	}
+
+	//Adds an entry by its expiration time. An entry which is due already goes to the bucket of the current time.
+	void schedule(TimedEntry<K, V> entry)
+	{
+		long delay = entry.expirationTime - currentTime;
+		long time = (delay < 0) ? currentTime : entry.expirationTime;
+		int level = 0;
+
+		while(level < SHIFTS.length - 1 && delay >= 1L << (SHIFTS[level] + 6))	//Beyond the top level, the entry waits in it and is scheduled again
+			level++;
+
+		link(wheel[level][(int) (time >> SHIFTS[level]) & (BUCKETS - 1)], entry);
+	}
+
+	void reschedule(TimedEntry<K, V> entry)
+	{
+		deschedule(entry);
+		schedule(entry);
+	}
+
+	void deschedule(TimedEntry<K, V> entry)
+	{
+		if(entry.next != null)
+		{
+			entry.previous.next = entry.next;
+			entry.next.previous = entry.previous;
+			entry.previous = null;
+			entry.next = null;
+		}
+	}
+
+	/*
+	 * Moves the time forward, going over the buckets of every level the time passed.
+	 * Parameters:
+	 * now - the new current time
+	 * expiredEntries - to which the entries whose expiration time is not after now are added, after they were descheduled
+	 */
+	void advance(long now, List<TimedEntry<K, V>> expiredEntries)
+	{
+		long previousTime = currentTime;
+		long previousTicks, ticks, lastTick;
+		TimedEntry<K, V> currentBucket;
+
+		if(now - previousTime < 0)
+			return;
+
+		currentTime = now;
+
+		for(int level = 0; level < SHIFTS.length; level++)
+		{
+			previousTicks = previousTime >> SHIFTS[level];
+			ticks = now >> SHIFTS[level];
+
+			if(level > 0 && ticks == previousTicks)				//Nothing moved on this level, so nothing moved on the levels above it
+				break;
+
+			//On the finest level only the buckets the time left, which are all due. Above it, the bucket the time entered cascades down too
+			lastTick = (level == 0) ? ticks - 1 : ticks;
+
+			for(long tick = Math.max(previousTicks, lastTick - BUCKETS + 1); tick <= lastTick; tick++)
+			{
+				expireBucket(wheel[level][(int) tick & (BUCKETS - 1)], now, expiredEntries);
+			}
+		}
+
+		currentBucket = wheel[0][(int) (now >> SHIFTS[0]) & (BUCKETS - 1)];
+
+		if(currentBucket.next != currentBucket && currentBucket.expirationTime - now <= 0)
+			expireBucket(currentBucket, now, expiredEntries);
+	}
+
+	//Empties a bucket, collecting the expired entries and scheduling the others again at a lower level
+	private void expireBucket(TimedEntry<K, V> sentinel, long now, List<TimedEntry<K, V>> expiredEntries)
+	{
+		TimedEntry<K, V> entry = sentinel.next;
+		TimedEntry<K, V> next;
+
+		sentinel.next = sentinel;										//Detach the list first, entries scheduled again may land in this bucket
+		sentinel.previous = sentinel;
+
+		while(entry != sentinel)
+		{
+			next = entry.next;
+			entry.previous = null;
+			entry.next = null;
+
+			if(entry.expirationTime - now <= 0)
+				expiredEntries.add(entry);
+			else
+				schedule(entry);
+
+			entry = next;
+		}
+	}
+
+	private static <K, V> void link(TimedEntry<K, V> sentinel, TimedEntry<K, V> entry)
+	{
+		if(sentinel.next == sentinel || entry.expirationTime - sentinel.expirationTime < 0)
+			sentinel.expirationTime = entry.expirationTime;
+
+		entry.previous = sentinel.previous;
+		entry.next = sentinel;
+		sentinel.previous.next = entry;
+		sentinel.previous = entry;
+	}
+}
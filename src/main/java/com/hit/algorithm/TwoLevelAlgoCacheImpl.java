@@ -0,0 +1,326 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+ * A small level 1 cache in front of a larger level 2 cache, like a TLB in front of the page table, each level with its own algorithm.
+ * A page which misses in level 1 but hits in level 2 is promoted to level 1, and the page level 1 replaces for it is demoted to level 2.
+ *
+ * In EXCLUSIVE mode every page is in one level only, so the capacity is the sum of both levels:
+ * a promoted page leaves level 2, and a page leaves the cache when level 2 replaces a demoted page.
+ * In INCLUSIVE mode level 2 holds every page of level 1 as well: puts go to both levels, a demoted page is already in level 2,
+ * and a page level 2 replaces is removed from level 1 too, so the capacity is that of level 2.
+ *
+ * getLevel1Stats and getLevel2Stats tell whether level 1 pays for itself: its hit ratio is the share of lookups
+ * which never reach level 2.
+ *
+ * Example: new TwoLevelAlgoCacheImpl<Integer, String>(16, 1000, TwoLevelAlgoCacheImpl.Mode.EXCLUSIVE, SecondChanceAlgoCacheImpl::new, MFUAlgoCacheImpl::new)
+ */
+public class TwoLevelAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	public enum Mode
+	{
+		INCLUSIVE,
+		EXCLUSIVE
+	}
+
+	private IAlgoCache<K, CacheEntry<K, V>> level1;
+	private IAlgoCache<K, CacheEntry<K, V>> level2;
+	private Map<K, CacheEntry<K, V>> level1Entries;
+	private Map<K, CacheEntry<K, V>> level2Entries;				//In inclusive mode the entries of level 1 are the same objects
+	private Mode mode;
+	private int level1Capacity;
+	private int level2Capacity;
+	private StatsCounter level1Stats;							//Null unless statistics are recorded
+	private StatsCounter level2Stats;
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	/*
+	 * Parameters:
+	 * level1Size - number of pages in level 1
+	 * level2Size - number of pages in level 2
+	 * mode - whether level 2 holds the pages of level 1 as well
+	 * level1Algorithm - creates the cache of level 1, for example SecondChanceAlgoCacheImpl::new
+	 * level2Algorithm - creates the cache of level 2, for example MFUAlgoCacheImpl::new
+	 */
+	public TwoLevelAlgoCacheImpl(int level1Size, int level2Size, Mode mode,
+			IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> level1Algorithm, IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> level2Algorithm)
+	{
+		this(level1Size, level2Size, mode, level1Algorithm, level2Algorithm, false);
+	}
+
+	//recordStats - whether to count hits, misses and evictions of every level for getLevel1Stats and getLevel2Stats
+	public TwoLevelAlgoCacheImpl(int level1Size, int level2Size, Mode mode,
+			IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> level1Algorithm, IntFunction<? extends IAlgoCache<K, CacheEntry<K, V>>> level2Algorithm,
+			boolean recordStats)
+	{
+		if(recordStats)
+		{
+			level1Stats = new StatsCounter();
+			level2Stats = new StatsCounter();
+		}
+
+		this.level1Capacity = (level1Size > 0) ? level1Size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.level2Capacity = (level2Size > 0) ? level2Size : VIRTUAL_MEMORY_DEFAULT_SIZE;
+		this.mode = mode;
+		this.level1 = level1Algorithm.apply(level1Capacity);
+		this.level2 = level2Algorithm.apply(level2Capacity);
+		level1Entries = new HashMap<>(level1Capacity);
+		level2Entries = new HashMap<>(level2Capacity);
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * A page found in level 2 is promoted to level 1, which may demote a page of level 1 and, in exclusive mode, replace a page of level 2.
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if it is in neither level
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		CacheEntry<K, V> entry;
+
+		for(K key:keys)											//One key at a time, as promoting a key may demote one looked up before it
+		{
+			entry = level1.getElement(Collections.singletonList(key)).get(0);
+
+			if(entry != null)
+			{
+				if(level1Stats != null)
+					level1Stats.recordHit();
+			}
+			else
+			{
+				if(level1Stats != null)
+					level1Stats.recordMiss();
+
+				entry = getFromLevel2(key);
+			}
+
+			valuesToReturn.add((entry == null) ? null : entry.getValue());
+		}
+
+		return valuesToReturn;
+	}
+
+	//Looks up a key which missed in level 1, and promotes it if it is found
+	private CacheEntry<K, V> getFromLevel2(K key)
+	{
+		CacheEntry<K, V> entry = level2Entries.get(key);
+
+		if(entry == null)
+		{
+			if(level2Stats != null)
+				level2Stats.recordMiss();
+
+			return null;
+		}
+
+		if(level2Stats != null)
+			level2Stats.recordHit();
+
+		if(mode == Mode.EXCLUSIVE)
+		{
+			level2.removeElement(Collections.singletonList(key));
+			level2Entries.remove(key);
+		}
+		else
+			level2.getElement(Collections.singletonList(key));			//Level 2 still sees the page being used
+
+		putInLevel1(entry);
+
+		return entry;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the page which left the cache, that is the page level 2 replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+
+			if(level1Stats != null)
+				level1Stats.recordPut();
+		}
+
+		return valuesToReturn;
+	}
+
+	private V putValue(K key, V value)
+	{
+		CacheEntry<K, V> entry;
+		V replacedValue;
+
+		if(mode == Mode.EXCLUSIVE)
+		{
+			entry = level1Entries.get(key);
+
+			if(entry == null && (entry = level2Entries.remove(key)) != null)	//Promote the page, with its new value
+				level2.removeElement(Collections.singletonList(key));
+
+			if(entry == null)
+				entry = new CacheEntry<>(key, value);
+			else
+				entry.setValue(value);
+
+			return putInLevel1(entry);
+		}
+
+		entry = level2Entries.get(key);							//Level 2 has every page of level 1
+
+		if(entry == null)
+			entry = new CacheEntry<>(key, value);
+		else
+			entry.setValue(value);
+
+		replacedValue = putInLevel2(entry);
+
+		if(level2Entries.get(key) == entry)						//Unless level 2 did not keep it, for being heavier than all of it
+			putInLevel1(entry);
+
+		return replacedValue;
+	}
+
+	//Puts a page in level 1, and demotes the pages it replaces. Returns the value of the page which left the cache, if any.
+	private V putInLevel1(CacheEntry<K, V> entry)
+	{
+		List<CacheEntry<K, V>> replacedEntries = new ArrayList<>();
+		V replacedValue = null, demotionReplacedValue;
+
+		level1Entries.put(entry.getKey(), entry);
+		level1.putElement(Collections.singletonList(entry.getKey()), Collections.singletonList(entry), replacedEntries);
+
+		for(CacheEntry<K, V> replacedEntry:replacedEntries)
+		{
+			level1Entries.remove(replacedEntry.getKey(), replacedEntry);
+
+			if(level1Stats != null)
+				level1Stats.recordEviction();
+
+			if(mode == Mode.EXCLUSIVE)							//In inclusive mode the page is in level 2 already
+			{
+				demotionReplacedValue = putInLevel2(replacedEntry);
+
+				if(replacedValue == null)
+					replacedValue = demotionReplacedValue;
+			}
+		}
+
+		return replacedValue;
+	}
+
+	//Puts a page in level 2, and drops the pages it replaces from the cache. Returns the value of the first one, if any.
+	private V putInLevel2(CacheEntry<K, V> entry)
+	{
+		List<CacheEntry<K, V>> replacedEntries = new ArrayList<>();
+		V replacedValue = null;
+
+		level2Entries.put(entry.getKey(), entry);
+		level2.putElement(Collections.singletonList(entry.getKey()), Collections.singletonList(entry), replacedEntries);
+
+		for(CacheEntry<K, V> replacedEntry:replacedEntries)
+		{
+			level2Entries.remove(replacedEntry.getKey(), replacedEntry);
+
+			if(mode == Mode.INCLUSIVE && level1Entries.remove(replacedEntry.getKey(), replacedEntry))	//Keep level 1 inside level 2
+				level1.removeElement(Collections.singletonList(replacedEntry.getKey()));
+
+			if(level2Stats != null)
+				level2Stats.recordEviction();
+
+			if(replacedValue == null)
+				replacedValue = replacedEntry.getValue();
+		}
+
+		if(level2Stats != null)
+			level2Stats.recordPut();
+
+		return replacedValue;
+	}
+
+	/*
+	 * Removes the mapping for the specified key from both levels if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		level1.removeElement(keys);
+		level2.removeElement(keys);
+
+		for(K key:keys)
+		{
+			if(level1Entries.remove(key) != null && level1Stats != null)
+				level1Stats.recordRemove();
+
+			if(level2Entries.remove(key) != null && level2Stats != null)
+				level2Stats.recordRemove();
+		}
+	}
+
+	/*
+	 * Statistics of the cache as a whole: a hit is a page found in either level, and an eviction is a page which left level 2.
+	 * In inclusive mode the pages of level 1 are counted once, as pages of level 2.
+	 */
+	@Override
+	public CacheStats getStats()
+	{
+		return (level1Stats == null) ? null : combine(getLevel1Stats(), getLevel2Stats());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (level1Stats == null) ? null : combine(level1Stats.snapshotAndReset(level1Entries.size()), level2Stats.snapshotAndReset(level2Entries.size()));
+	}
+
+	private CacheStats combine(CacheStats level1, CacheStats level2)
+	{
+		if(mode == Mode.INCLUSIVE)
+			return new CacheStats(level1.getHits() + level2.getHits(), level2.getMisses(), level2.getEvictions(),
+					level1.getPuts(), level2.getRemoves(), level2.getSize());
+
+		return new CacheStats(level1.getHits() + level2.getHits(), level2.getMisses(), level2.getEvictions(),
+				level1.getPuts(), level1.getRemoves() + level2.getRemoves(), level1.getSize() + level2.getSize());
+	}
+
+	//Statistics of level 1 only: misses are looked up in level 2, evictions are pages demoted
+	public CacheStats getLevel1Stats()
+	{
+		return (level1Stats == null) ? null : level1Stats.snapshot(level1Entries.size());
+	}
+
+	//Statistics of level 2 only: lookups are the misses of level 1, puts are pages demoted (or all puts in inclusive mode), evictions are pages which left the cache
+	public CacheStats getLevel2Stats()
+	{
+		return (level2Stats == null) ? null : level2Stats.snapshot(level2Entries.size());
+	}
+
+	@Override
+	public String toString()
+	{
+		return "TwoLevelAlgoCacheImpl [level 1 = " + level1 + ", level 2 = " + level2 + ", mode=" + mode + "]";
+	}
+}
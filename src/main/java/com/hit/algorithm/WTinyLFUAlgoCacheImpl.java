@@ -0,0 +1,299 @@
+package com.hit.algorithm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Window TinyLFU: new pages enter a small LRU window (1% of the cache), and a page leaving the window is admitted
+ * to the main region only if it was used more often than the page the main region would replace for it.
+ * How often pages were used comes from a FrequencySketch, which also remembers pages which are not in the cache,
+ * with a few bits per page, and halves its counters periodically so old popularity fades.
+ *
+ * The main region is a segmented LRU: admitted pages start in the probation segment, and a page used again
+ * there moves to the protected segment (80% of the main region). Pages pushed out of the protected segment
+ * go back to probation, which is where the main region replaces pages from.
+ * A scan of pages used once passes through the window without pushing the frequently used pages out.
+ */
+public class WTinyLFUAlgoCacheImpl<K,V> implements IAlgoCache<K, V>
+{
+	private Map<K, V> window;									//All three are kept in access order, the least recently used first
+	private Map<K, V> probation;
+	private Map<K, V> protectedSegment;
+	private FrequencySketch sketch;
+	private int capacity;
+	private int windowCapacity;
+	private int mainCapacity;
+	private int protectedCapacity;
+	private StatsCounter statsCounter;							//Null unless statistics are recorded
+	private static final Integer VIRTUAL_MEMORY_DEFAULT_SIZE = 5;
+
+	public WTinyLFUAlgoCacheImpl()
+	{
+		this(VIRTUAL_MEMORY_DEFAULT_SIZE);
+	}
+
+	public WTinyLFUAlgoCacheImpl(int size)
+	{
+		this(size, false);
+	}
+
+	//recordStats - whether to count hits, misses and evictions for getStats
+	public WTinyLFUAlgoCacheImpl(int size, boolean recordStats)
+	{
+		if(recordStats)
+			statsCounter = new StatsCounter();
+
+		if(size>0)
+			this.capacity = size;
+		else
+			this.capacity = VIRTUAL_MEMORY_DEFAULT_SIZE;
+
+		windowCapacity = Math.max(1, capacity / 100);
+		mainCapacity = capacity - windowCapacity;
+		protectedCapacity = (int) (mainCapacity * 80L / 100);
+		window = new LinkedHashMap<>(windowCapacity + 1, 0.75f, true);
+		probation = new LinkedHashMap<>(mainCapacity - protectedCapacity, 0.75f, true);
+		protectedSegment = new LinkedHashMap<>(protectedCapacity + 1, 0.75f, true);
+		sketch = new FrequencySketch(capacity);
+	}
+
+	/*
+	 * Returns the value to which the specified key is mapped, or null if this cache contains no mapping for the key.
+	 * In addition performs the relevant cache algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * Returns:
+	 * the value to which the specified key is mapped, or null if this cache contains no mapping for the key
+	 */
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());
+
+		for(K key:keys)
+		{
+			valuesToReturn.add(getValue(key));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of getElement, which writes the values into the given array
+	@Override
+	public void getElement(K[] keys, int count, V[] values)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			values[i] = getValue(keys[i]);
+		}
+	}
+
+	//Returns the value of a single key, or null if it is not in the memory
+	private V getValue(K key)
+	{
+		V valueOfKey = access(key, null);
+
+		if(valueOfKey != null)
+		{
+			sketch.increment(key);
+
+			if(statsCounter != null)
+				statsCounter.recordHit();
+		}
+		else if(statsCounter != null)
+			statsCounter.recordMiss();
+
+		return valueOfKey;
+	}
+
+	/*
+	 * Moves a key to the most recently used position of its segment, or from probation to protected.
+	 * Parameters:
+	 * newValue - to replace the value of the key with, or null to keep it
+	 * Returns:
+	 * the value of the key before the update, or null if the key is not in the memory
+	 */
+	private V access(K key, V newValue)
+	{
+		V valueOfKey = window.get(key);
+
+		if(valueOfKey != null)
+		{
+			if(newValue != null)
+				window.put(key, newValue);
+		}
+		else if((valueOfKey = protectedSegment.get(key)) != null)
+		{
+			if(newValue != null)
+				protectedSegment.put(key, newValue);
+		}
+		else if((valueOfKey = probation.remove(key)) != null)		//Used again while on probation, so it is protected now
+		{
+			protectedSegment.put(key, (newValue != null) ? newValue : valueOfKey);
+
+			if(protectedSegment.size() > protectedCapacity)			//Make room by sending the least recently used protected page back to probation
+				moveEldest(protectedSegment, probation);
+		}
+
+		return valueOfKey;
+	}
+
+	/*
+	 * Associates the specified value with the specified key in this cache according to the current algorithm
+	 * Parameters:
+	 * key - with which the specified value is to be associated
+	 * value - to be associated with the specified key
+	 * Returns:
+	 * return the value of the element which need to be replaced
+	 */
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		List<V> valuesToReturn = new ArrayList<>(keys.size());			//Values which have been eliminated
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = values.iterator();
+
+		while (keysIterator.hasNext() && valuesIterator.hasNext())
+		{
+			valuesToReturn.add(putValue(keysIterator.next(), valuesIterator.next()));
+		}
+
+		return valuesToReturn;
+	}
+
+	//Bulk version of putElement, which writes the replaced values into the given array
+	@Override
+	public void putElement(K[] keys, V[] values, int count, V[] replacedValues)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			replacedValues[i] = putValue(keys[i], values[i]);
+		}
+	}
+
+	//Puts a single key, and returns the value of the page it replaced or null if there was no need to replace
+	private V putValue(K currentKey, V currentValue)
+	{
+		V currentValueToReplace = null;
+
+		sketch.increment(currentKey);
+
+		if(access(currentKey, currentValue) == null)					//A new key enters the window
+		{
+			window.put(currentKey, currentValue);
+
+			if(window.size() > windowCapacity)
+				currentValueToReplace = admit(removeEldest(window));
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordPut();
+
+		return currentValueToReplace;
+	}
+
+	/*
+	 * Offers the page which left the window to the main region. While the main region has room it is taken as is,
+	 * afterwards it competes with the page probation would replace, and the less frequently used of the two is replaced.
+	 * Parameters:
+	 * candidate - page which left the window
+	 * Returns:
+	 * the value of the page which was replaced, or null if there was room
+	 */
+	private V admit(Map.Entry<K, V> candidate)
+	{
+		Map.Entry<K, V> victim;
+
+		if(probation.size() + protectedSegment.size() < mainCapacity)
+		{
+			probation.put(candidate.getKey(), candidate.getValue());
+
+			return null;
+		}
+
+		if(statsCounter != null)
+			statsCounter.recordEviction();
+
+		if(mainCapacity == 0 || sketch.frequency(candidate.getKey()) <= sketch.frequency(probation.keySet().iterator().next()))
+			return candidate.getValue();
+
+		victim = removeEldest(probation);
+		probation.put(candidate.getKey(), candidate.getValue());
+
+		return victim.getValue();
+	}
+
+	private static <K, V> Map.Entry<K, V> removeEldest(Map<K, V> segment)
+	{
+		Iterator<Map.Entry<K, V>> eldest = segment.entrySet().iterator();
+		Map.Entry<K, V> entry = eldest.next();
+
+		eldest.remove();
+
+		return entry;
+	}
+
+	private static <K, V> void moveEldest(Map<K, V> from, Map<K, V> to)
+	{
+		Map.Entry<K, V> entry = removeEldest(from);
+
+		to.put(entry.getKey(), entry.getValue());
+	}
+
+	/*
+	 * Removes the mapping for the specified key from this map if present.
+	 * Parameters:
+	 * key - whose mapping is to be removed from the cache according to the current algorithm
+	 */
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		for(K key:keys)
+		{
+			removeKey(key);
+		}
+	}
+
+	@Override
+	public void removeElement(K[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			removeKey(keys[i]);
+		}
+	}
+
+	//The sketch keeps counting the key, it may come back
+	private void removeKey(K key)
+	{
+		if((window.remove(key) != null || probation.remove(key) != null || protectedSegment.remove(key) != null) && statsCounter != null)
+			statsCounter.recordRemove();
+	}
+
+	private int size()
+	{
+		return window.size() + probation.size() + protectedSegment.size();
+	}
+
+	@Override
+	public CacheStats getStats()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshot(size());
+	}
+
+	@Override
+	public CacheStats getStatsAndReset()
+	{
+		return (statsCounter == null) ? null : statsCounter.snapshotAndReset(size());
+	}
+
+	@Override
+	public String toString()
+	{
+		return "WTinyLFUAlgoCacheImpl [window = " + window + ", probation = " + probation + ", protected = " + protectedSegment
+				+ ", capacity=" + capacity + "]";
+	}
+}
@@ -0,0 +1,11 @@
+package com.hit.algorithm;
+
+/*
+ * Gives the weight of a page, for caches whose capacity is a total weight (for example bytes) instead of a number of pages.
+ * The weight of a page must not be negative, and must stay the same as long as the page is in the cache.
+ */
+@FunctionalInterface
+public interface Weigher<K,V>
+{
+	public int weigh(K key, V value);
+}
@@ -0,0 +1,251 @@
+package com.hit.algorithm.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.hit.algorithm.Codec;
+import com.hit.algorithm.IAlgoCache;
+
+/*
+ * A cache served by a CacheServer. Every call sends one request and waits for its response.
+ * The client is thread-safe, and calls from several threads are pipelined over the single connection:
+ * a thread sends its request without waiting for the responses of the others, and a reader thread hands
+ * every response to the call which sent the matching request, as the server answers in order.
+ *
+ * A broken connection fails all the waiting calls and every later one with an UncheckedIOException,
+ * and an exception thrown by the cache on the server is thrown as an IllegalStateException.
+ */
+public class CacheClient<K,V> implements IAlgoCache<K, V>, Closeable
+{
+	private SocketChannel channel;
+	private Codec<K> keyCodec;
+	private Codec<V> valueCodec;
+	private ByteBuffer out = ByteBuffer.allocate(Protocol.BUFFER_SIZE);		//Guarded by the lock of the channel
+	private Queue<CompletableFuture<List<V>>> pendingResponses = new ConcurrentLinkedQueue<>();	//In the order the requests were sent
+	private Thread readerThread;
+	private volatile IOException failure;
+
+	/*
+	 * Parameters:
+	 * address - of the server
+	 * keyCodec - writes the keys of requests
+	 * valueCodec - writes the values of put requests and reads the values of responses
+	 */
+	public CacheClient(InetSocketAddress address, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException
+	{
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		channel = SocketChannel.open(address);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		readerThread = new Thread(this::readResponses, "CacheClient " + address);
+		readerThread.setDaemon(true);
+		readerThread.start();
+	}
+
+	@Override
+	public List<V> getElement(List<K> keys)
+	{
+		return join(send(Protocol.GET, keys, null));
+	}
+
+	@Override
+	public List<V> putElement(List<K> keys, List<V> values)
+	{
+		return join(send(Protocol.PUT, keys, values));
+	}
+
+	@Override
+	public void removeElement(List<K> keys)
+	{
+		join(send(Protocol.REMOVE, keys, null));
+	}
+
+	//Sends a request, and returns the future its response completes
+	private CompletableFuture<List<V>> send(byte operation, List<K> keys, List<V> values)
+	{
+		CompletableFuture<List<V>> response = new CompletableFuture<>();
+
+		synchronized (channel)
+		{
+			if(failure != null)
+				throw new UncheckedIOException(failure);
+
+			out.clear();
+			out = Protocol.writeFrame(out, buffer -> writeRequest(buffer, operation, keys, values));
+			out.flip();
+			pendingResponses.add(response);
+
+			try
+			{
+				while (out.hasRemaining())
+				{
+					channel.write(out);
+				}
+			}
+			catch (IOException e)
+			{
+				fail(e);
+			}
+		}
+
+		if(failure != null)							//Failed while the response was added, after the reader failed the others
+			fail(failure);
+
+		return response;
+	}
+
+	private void writeRequest(ByteBuffer buffer, byte operation, List<K> keys, List<V> values)
+	{
+		int countPosition, count = 0;
+		Iterator<K> keysIterator = keys.iterator();
+		Iterator<V> valuesIterator = (values == null) ? null : values.iterator();
+
+		buffer.put(operation);
+		countPosition = buffer.position();
+		buffer.putInt(0);
+
+		while (keysIterator.hasNext() && (valuesIterator == null || valuesIterator.hasNext()))
+		{
+			keyCodec.write(keysIterator.next(), buffer);
+
+			if(valuesIterator != null)
+				valueCodec.write(valuesIterator.next(), buffer);
+
+			count++;
+		}
+
+		buffer.putInt(countPosition, count);
+	}
+
+	//The loop of the reader thread, which completes the responses until the connection is closed
+	private void readResponses()
+	{
+		ByteBuffer in = ByteBuffer.allocate(Protocol.BUFFER_SIZE);
+		int frameEnd;
+
+		try
+		{
+			while (true)
+			{
+				in = Protocol.ensureFrameFits(in);
+
+				if(channel.read(in) < 0)
+					throw new EOFException("The server closed the connection");
+
+				in.flip();
+
+				while ((frameEnd = Protocol.frameEnd(in)) >= 0)
+				{
+					in.position(in.position() + Integer.BYTES);
+					readResponse(in, frameEnd);
+					in.position(frameEnd);
+				}
+
+				in.compact();
+			}
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+		catch (RuntimeException e)					//A value the codec could not read
+		{
+			fail(new IOException(e));
+		}
+	}
+
+	private void readResponse(ByteBuffer in, int frameEnd) throws IOException
+	{
+		CompletableFuture<List<V>> response = pendingResponses.poll();
+		List<V> values;
+		int count;
+
+		if(response == null)
+			throw new IOException("Response to no request");
+
+		if(in.get() == Protocol.ERROR)
+		{
+			response.completeExceptionally(new IllegalStateException(Protocol.readError(in)));
+			return;
+		}
+
+		count = in.getInt();
+		values = (count == 0) ? Collections.emptyList() : new ArrayList<>(count);
+
+		for(int i = 0; i < count; i++)
+		{
+			values.add((in.get() == 0) ? null : valueCodec.read(in));
+		}
+
+		response.complete(values);
+	}
+
+	//Fails the waiting calls, and every later call
+	private void fail(IOException e)
+	{
+		CompletableFuture<List<V>> response;
+		UncheckedIOException exception;
+
+		if(failure == null)
+			failure = e;
+
+		exception = new UncheckedIOException(failure);
+
+		while ((response = pendingResponses.poll()) != null)
+		{
+			response.completeExceptionally(exception);
+		}
+	}
+
+	//Waits for a response, throwing its exception as is
+	private static <V> List<V> join(CompletableFuture<List<V>> response)
+	{
+		try
+		{
+			return response.join();
+		}
+		catch (CompletionException e)
+		{
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			throw e;
+		}
+	}
+
+	//Closes the connection, calls which are still waiting fail
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+
+		try
+		{
+			readerThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CacheClient [server = " + channel.socket().getRemoteSocketAddress() + "]    [pending responses: " + pendingResponses.size() + "]";
+	}
+}
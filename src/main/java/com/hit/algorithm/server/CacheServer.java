@@ -0,0 +1,329 @@
+package com.hit.algorithm.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.hit.algorithm.Codec;
+import com.hit.algorithm.IAlgoCache;
+
+/*
+ * Serves a cache over TCP with the protocol of Protocol. A single thread runs a non-blocking selector over all
+ * the connections, so the cache is only used from that thread and need not be thread-safe.
+ *
+ * Clients pipeline: every read handles all the whole requests which arrived, and their responses are written
+ * together with a single write, so a batch of requests costs one system call each way rather than one per request.
+ * A connection which does not read its responses stops being read from once too many of them wait to be written.
+ *
+ * Example: new CacheServer<>(new LRUAlgoCacheImpl<Integer, String>(1000), Codecs.INTEGER, Codecs.STRING).start(new InetSocketAddress(7000))
+ */
+public class CacheServer<K,V> implements Closeable
+{
+	private static final int HIGH_WATER_MARK = 4 << 20;			//Bytes of responses waiting to be written before a connection stops being read
+
+	private IAlgoCache<K, V> cache;
+	private Codec<K> keyCodec;
+	private Codec<V> valueCodec;
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread selectorThread;
+	private volatile boolean closed;
+	private volatile Throwable failure;							//Null unless the thread of the selector failed
+	private List<K> keys = new ArrayList<>();
+	private List<V> values = new ArrayList<>();
+
+	//The buffers of a connection, both in write mode
+	private static final class Connection
+	{
+		ByteBuffer in = ByteBuffer.allocate(Protocol.BUFFER_SIZE);
+		ByteBuffer out = ByteBuffer.allocate(Protocol.BUFFER_SIZE);
+	}
+
+	/*
+	 * Parameters:
+	 * cache - to serve
+	 * keyCodec - reads the keys of requests
+	 * valueCodec - reads the values of put requests and writes the values of responses
+	 */
+	public CacheServer(IAlgoCache<K, V> cache, Codec<K> keyCodec, Codec<V> valueCodec)
+	{
+		this.cache = cache;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+	}
+
+	/*
+	 * Starts accepting connections on a thread of the server.
+	 * Parameters:
+	 * address - to listen on, port 0 picks a free port
+	 * Returns:
+	 * the address the server listens on
+	 */
+	public synchronized InetSocketAddress start(InetSocketAddress address) throws IOException
+	{
+		if(selector != null)
+			throw new IllegalStateException("The server is already started");
+
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+
+		try
+		{
+			serverChannel.bind(address);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		}
+		catch (IOException e)
+		{
+			close();
+			throw e;
+		}
+
+		selectorThread = new Thread(this::run, "CacheServer " + serverChannel.getLocalAddress());
+		selectorThread.setDaemon(true);
+		selectorThread.start();
+
+		return (InetSocketAddress) serverChannel.getLocalAddress();
+	}
+
+	private void run()
+	{
+		Iterator<SelectionKey> selectedKeys;
+		SelectionKey key;
+
+		try
+		{
+			while (!closed)
+			{
+				selector.select();
+				selectedKeys = selector.selectedKeys().iterator();
+
+				while (selectedKeys.hasNext())
+				{
+					key = selectedKeys.next();
+					selectedKeys.remove();
+
+					try
+					{
+						if(key.isAcceptable())
+							accept();
+						else
+						{
+							if(key.isReadable())
+								read(key);
+							if(key.isValid() && key.isWritable())
+								write(key);
+						}
+					}
+					catch (IOException e)						//The connection broke or sent a malformed frame, the others go on
+					{
+						if(key.channel() != serverChannel)
+							closeConnection(key);
+					}
+				}
+			}
+		}
+		catch (Throwable e)											//The selector failed, or an error escaped a request
+		{
+			failure = e;
+			Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+		}
+		finally														//Closed, or failed
+		{
+			closeAll();
+		}
+	}
+
+	private void accept() throws IOException
+	{
+		SocketChannel channel = serverChannel.accept();
+
+		if(channel == null)
+			return;
+
+		channel.configureBlocking(false);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		channel.register(selector, SelectionKey.OP_READ, new Connection());
+	}
+
+	//Reads what arrived, handles every whole request in it and writes their responses
+	private void read(SelectionKey key) throws IOException
+	{
+		Connection connection = (Connection) key.attachment();
+		SocketChannel channel = (SocketChannel) key.channel();
+		int frameEnd;
+
+		connection.in = Protocol.ensureFrameFits(connection.in);
+
+		if(channel.read(connection.in) < 0)
+		{
+			closeConnection(key);
+			return;
+		}
+
+		connection.in.flip();
+
+		while ((frameEnd = Protocol.frameEnd(connection.in)) >= 0)
+		{
+			connection.in.position(connection.in.position() + Integer.BYTES);
+			handle(connection, frameEnd);
+		}
+
+		connection.in.compact();
+		write(key);
+	}
+
+	//Handles the request which ends at frameEnd and appends its response to the out buffer
+	private void handle(Connection connection, int frameEnd) throws IOException
+	{
+		ByteBuffer in = connection.in;
+		int limit = in.limit();
+		byte operation;
+		int count;
+		List<V> results;
+
+		keys.clear();
+		values.clear();
+		in.limit(frameEnd);											//A malformed request can not read into the next one
+
+		try
+		{
+			operation = in.get();
+			count = in.getInt();
+
+			for(int i = 0; i < count; i++)
+			{
+				keys.add(keyCodec.read(in));
+
+				if(operation == Protocol.PUT)
+					values.add(valueCodec.read(in));
+			}
+
+			if(in.hasRemaining())
+				throw new IOException("Request has " + in.remaining() + " bytes after its " + count + " keys");
+
+			switch (operation)
+			{
+				case Protocol.GET:
+					results = cache.getElement(keys);
+					break;
+				case Protocol.PUT:
+					results = cache.putElement(keys, values);
+					break;
+				case Protocol.REMOVE:
+					cache.removeElement(keys);
+					results = Collections.emptyList();
+					break;
+				default:
+					throw new IOException("Unknown operation " + operation);
+			}
+
+			connection.out = Protocol.writeFrame(connection.out, buffer -> Protocol.writeValues(buffer, results, valueCodec));
+		}
+		catch (RuntimeException e)									//Thrown by the cache or by a codec, the client gets it as an error
+		{
+			connection.out = Protocol.writeFrame(connection.out, buffer -> Protocol.writeError(buffer, e.toString()));
+		}
+		finally
+		{
+			in.position(frameEnd);
+			in.limit(limit);
+		}
+	}
+
+	//Writes as much of the responses as the socket takes, and reads more requests only while few responses wait
+	private void write(SelectionKey key) throws IOException
+	{
+		Connection connection = (Connection) key.attachment();
+
+		connection.out.flip();
+		((SocketChannel) key.channel()).write(connection.out);
+		connection.out.compact();
+
+		if(connection.out.position() == 0)
+			key.interestOps(SelectionKey.OP_READ);
+		else if(connection.out.position() < HIGH_WATER_MARK)
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		else
+			key.interestOps(SelectionKey.OP_WRITE);
+	}
+
+	private void closeConnection(SelectionKey key)
+	{
+		key.cancel();
+
+		try
+		{
+			key.channel().close();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+
+	//Stops the server and closes all its connections
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if(selector == null || closed)
+			return;
+
+		closed = true;
+
+		if(selectorThread == null)									//Failed to start
+			closeAll();
+		else
+		{
+			selector.wakeup();
+
+			try
+			{
+				selectorThread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	//Called by the thread of the selector, or before it started
+	private void closeAll()
+	{
+		for(SelectionKey key:selector.keys())
+		{
+			closeConnection(key);
+		}
+
+		try
+		{
+			serverChannel.close();
+			selector.close();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+
+	//The error which stopped the server, or null if it is running or was closed
+	public Throwable getFailure()
+	{
+		return failure;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CacheServer [cache = " + cache + ", address=" + ((serverChannel == null) ? null : serverChannel.socket().getLocalSocketAddress()) + "]";
+	}
+}
@@ -0,0 +1,153 @@
+package com.hit.algorithm.server;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.hit.algorithm.Codec;
+
+/*
+ * The binary protocol between CacheClient and CacheServer. Every message is a frame:
+ * int length of the rest of the frame, then
+ * request - byte operation (GET, PUT or REMOVE), int count, and count keys (each followed by its value for PUT)
+ * response - byte status, and for OK an int count and count values, each after a byte which is 0 for null;
+ *            for ERROR an int length and the UTF-8 message
+ * A connection may send any number of requests without waiting, and the responses come back in the same order.
+ */
+final class Protocol
+{
+	static final byte GET = 1;
+	static final byte PUT = 2;
+	static final byte REMOVE = 3;
+	static final byte OK = 0;
+	static final byte ERROR = 1;
+	static final int MAX_FRAME_LENGTH = 64 << 20;
+	static final int BUFFER_SIZE = 64 << 10;
+
+	//Writes the body of a frame, and may be called again from the start on a larger buffer
+	interface FrameBody
+	{
+		void write(ByteBuffer buffer);
+	}
+
+	private Protocol()
+	{
+	}
+
+	/*
+	 * Appends a frame to a buffer in write mode, growing the buffer until the frame fits.
+	 * Returns:
+	 * the buffer holding the frame, either the given one or a larger copy of it
+	 */
+	static ByteBuffer writeFrame(ByteBuffer buffer, FrameBody body)
+	{
+		int start = buffer.position();
+
+		while(true)
+		{
+			try
+			{
+				buffer.position(start + Integer.BYTES);
+				body.write(buffer);
+				buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+
+				return buffer;
+			}
+			catch (BufferOverflowException | IllegalArgumentException e)		//Also thrown by position() when the length doesn't fit
+			{
+				if(buffer.capacity() >= MAX_FRAME_LENGTH)
+					throw new IllegalArgumentException("Frame is larger than " + MAX_FRAME_LENGTH + " bytes");
+
+				buffer.position(start);
+				buffer = grow(buffer, buffer.capacity() * 2);
+			}
+		}
+	}
+
+	//A larger buffer in write mode with the content of the given one up to its position
+	static ByteBuffer grow(ByteBuffer buffer, int capacity)
+	{
+		ByteBuffer larger = ByteBuffer.allocate(Math.min(capacity, MAX_FRAME_LENGTH + Integer.BYTES));
+
+		buffer.flip();
+		larger.put(buffer);
+
+		return larger;
+	}
+
+	/*
+	 * Checks whether the buffer, in read mode, starts with a whole frame.
+	 * Returns:
+	 * the position the frame ends at, or -1 if more bytes are needed
+	 */
+	static int frameEnd(ByteBuffer buffer) throws IOException
+	{
+		int length;
+
+		if(buffer.remaining() < Integer.BYTES)
+			return -1;
+
+		length = buffer.getInt(buffer.position());
+
+		if(length <= 0 || length > MAX_FRAME_LENGTH)
+			throw new IOException("Invalid frame length " + length);
+
+		return (buffer.remaining() - Integer.BYTES >= length) ? buffer.position() + Integer.BYTES + length : -1;
+	}
+
+	//Makes sure a buffer in write mode can receive a whole frame of the length at its start
+	static ByteBuffer ensureFrameFits(ByteBuffer buffer)
+	{
+		int length;
+
+		if(buffer.position() < Integer.BYTES)
+			return buffer;
+
+		length = buffer.getInt(0) + Integer.BYTES;
+
+		return (length > buffer.capacity()) ? grow(buffer, Math.max(length, buffer.capacity() * 2)) : buffer;
+	}
+
+	static <V> void writeValues(ByteBuffer buffer, List<V> values, Codec<V> valueCodec)
+	{
+		buffer.put(OK);
+		buffer.putInt(values.size());
+
+		for(V value:values)
+		{
+			if(value == null)
+				buffer.put((byte) 0);
+			else
+			{
+				buffer.put((byte) 1);
+				valueCodec.write(value, buffer);
+			}
+		}
+	}
+
+	static void writeError(ByteBuffer buffer, String message)
+	{
+		byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+
+		buffer.put(ERROR);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	static String readError(ByteBuffer buffer)
+	{
+		int length = buffer.getInt();
+		byte[] bytes;
+
+		if(length < 0 || length > buffer.remaining())
+			throw new BufferUnderflowException();
+
+		bytes = new byte[length];
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
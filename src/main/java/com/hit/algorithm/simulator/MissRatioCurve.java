@@ -0,0 +1,352 @@
+package com.hit.algorithm.simulator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/*
+ * The hit ratio of LRU at every capacity, computed in a single pass over a trace instead of replaying it once per capacity.
+ *
+ * LRU has the stack property: a reference hits in a cache of capacity c exactly when fewer than c other pages were used
+ * since the last reference to the same page (its stack distance). So one histogram of stack distances gives the whole curve.
+ * Every page remembers the time of its last reference, and a Fenwick tree over the times holds a 1 at the last time of every page,
+ * so the number of pages used since a time is a prefix sum, in O(log n) per reference.
+ *
+ * For traces too large to track every page, pages are sampled spatially (SHARDS): a page is tracked only if the hash of its
+ * number falls under a threshold, so a page is either always sampled or never, and the distances between sampled pages are
+ * scaled up by the sampling rate. With maxSampledPages the threshold is lowered whenever more pages than that are tracked,
+ * dropping the pages of the highest hashes, so the memory stays bounded whatever the number of distinct pages.
+ *
+ * Usage:
+ * java com.hit.algorithm.simulator.MissRatioCurve <trace file> [format=BINARY|TEXT] [maxCapacity=100000] [step=1000]
+ *     [rate=1.0] [maxSampledPages=1000000] [verify=1000,50000]
+ * verify replays the trace key by key through LRUAlgoCacheImpl at the given capacities, for comparison.
+ */
+public class MissRatioCurve
+{
+	//A tracked page
+	private static final class Page
+	{
+		private final int key;
+		private final int hash;
+		private int time;								//Of its last reference
+
+		private Page(int key, int hash, int time)
+		{
+			this.key = key;
+			this.hash = hash;
+			this.time = time;
+		}
+	}
+
+	private static final int SAMPLE_RANGE = 1 << 24;
+	private static final int INITIAL_TIMES = 1 << 10;
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final int step;
+	private final double[] histogram;					//Weight of the references which hit from capacity (i + 1) * step
+	private final int maxSampledPages;
+	private final Map<Integer, Page> pages = new HashMap<>();
+	private final PriorityQueue<Page> highestHashes;	//Null unless the number of pages is bounded
+	private int threshold;								//A page is sampled if its hash is below it
+	private int[] tree = new int[INITIAL_TIMES + 1];	//Fenwick tree over the times, from 1
+	private int now;
+	private double sampledWeight;
+	private long accesses;
+
+	//An exact curve, which tracks every page
+	public MissRatioCurve(int maxCapacity, int step)
+	{
+		this(maxCapacity, step, 1.0, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * Parameters:
+	 * maxCapacity - largest capacity of the curve
+	 * step - the curve has a point every step pages
+	 * sampleRate - fraction of the pages which are tracked, 1 for all of them
+	 * maxSampledPages - lowers the sampling rate when more pages are tracked, Integer.MAX_VALUE for no bound
+	 */
+	public MissRatioCurve(int maxCapacity, int step, double sampleRate, int maxSampledPages)
+	{
+		this.step = Math.max(1, step);
+		this.histogram = new double[(Math.max(1, maxCapacity) + this.step - 1) / this.step];
+		this.maxSampledPages = Math.max(1, maxSampledPages);
+		this.threshold = (int) Math.max(1, Math.min(SAMPLE_RANGE, Math.round(sampleRate * SAMPLE_RANGE)));
+		this.highestHashes = (maxSampledPages == Integer.MAX_VALUE) ? null : new PriorityQueue<>((a, b) -> Integer.compare(b.hash, a.hash));
+	}
+
+	//Records a single reference to a page
+	public void record(int key)
+	{
+		int hash = hash(key);
+		Page page;
+		int distance;
+
+		accesses++;
+
+		if(hash >= threshold)									//Not sampled
+			return;
+
+		if(now == tree.length - 1)
+			renumberTimes();
+
+		now++;
+		page = pages.get(key);
+		sampledWeight++;
+
+		if(page == null)										//A first reference misses at every capacity
+		{
+			page = new Page(key, hash, now);
+			pages.put(key, page);
+
+			if(highestHashes != null)
+				highestHashes.add(page);
+		}
+		else
+		{
+			distance = pages.size() - prefixSum(page.time);	//Pages used after the last reference to this one
+			addToHistogram(distance / getSampleRate() + 1);
+			add(page.time, -1);
+			page.time = now;
+		}
+
+		add(now, 1);
+
+		if(highestHashes != null && pages.size() > maxSampledPages)
+			lowerThreshold();
+	}
+
+	//Records the first count references of the array
+	public void record(int[] keys, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			record(keys[i]);
+		}
+	}
+
+	//Records all the references of a trace file
+	public void record(Path trace, TraceReader.Format format) throws IOException
+	{
+		int[] chunk = new int[CHUNK_SIZE];
+		int count;
+
+		try (TraceReader reader = new TraceReader(trace, format))
+		{
+			while((count = reader.read(chunk)) > 0)
+			{
+				record(chunk, count);
+			}
+		}
+	}
+
+	private void addToHistogram(double stackDistance)
+	{
+		double bucket = Math.ceil(stackDistance / step) - 1;		//First capacity of the curve which holds the page
+
+		if(bucket < histogram.length)
+			histogram[(int) bucket]++;
+	}
+
+	/*
+	 * Drops the tracked pages of the highest hash, and scales the weight of the references seen so far to the new rate,
+	 * as if they had been sampled at it from the start.
+	 */
+	private void lowerThreshold()
+	{
+		double previousRate = getSampleRate();
+		double scale;
+		Page page;
+
+		threshold = highestHashes.peek().hash;
+
+		while(!highestHashes.isEmpty() && highestHashes.peek().hash >= threshold)
+		{
+			page = highestHashes.poll();
+			pages.remove(page.key);
+			add(page.time, -1);
+		}
+
+		scale = getSampleRate() / previousRate;
+		sampledWeight *= scale;
+
+		for(int i = 0; i < histogram.length; i++)
+		{
+			histogram[i] *= scale;
+		}
+	}
+
+	//When the times run out, gives the tracked pages the times 1 to n in the same order, and doubles the times if they are more than half full
+	private void renumberTimes()
+	{
+		List<Page> byTime = new ArrayList<>(pages.values());
+		int length = (pages.size() * 2 > tree.length) ? tree.length * 2 : tree.length;
+
+		byTime.sort((a, b) -> Integer.compare(a.time, b.time));
+		tree = new int[length];
+
+		for(int i = 0; i < byTime.size(); i++)
+		{
+			byTime.get(i).time = i + 1;
+			tree[i + 1] = 1;
+		}
+
+		for(int i = 1; i < tree.length; i++)						//Builds the Fenwick tree in place, in linear time
+		{
+			if(i + (i & -i) < tree.length)
+				tree[i + (i & -i)] += tree[i];
+		}
+
+		now = byTime.size();
+	}
+
+	private void add(int time, int delta)
+	{
+		for(int i = time; i < tree.length; i += i & -i)
+		{
+			tree[i] += delta;
+		}
+	}
+
+	//Number of tracked pages whose last reference was at the given time or before
+	private int prefixSum(int time)
+	{
+		int sum = 0;
+
+		for(int i = time; i > 0; i -= i & -i)
+		{
+			sum += tree[i];
+		}
+
+		return sum;
+	}
+
+	//Murmur3 finalizer, so the sampled pages are not correlated with their numbers
+	private static int hash(int key)
+	{
+		int hash = key;
+
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+
+		return hash & (SAMPLE_RANGE - 1);
+	}
+
+	/*
+	 * Returns:
+	 * the hit ratio of LRU at the capacities step, 2 * step, ... up to the largest capacity
+	 */
+	public double[] getHitRatios()
+	{
+		double[] hitRatios = new double[histogram.length];
+		double expectedWeight = accesses * getSampleRate();		//Of the sampled references, had the sample been exactly the rate
+		double hits;
+
+		if(expectedWeight == 0)
+			return hitRatios;
+
+		hits = expectedWeight - sampledWeight;					//SHARDS adjustment: the difference is counted at the smallest distances
+
+		for(int i = 0; i < histogram.length; i++)
+		{
+			hits += histogram[i];
+			hitRatios[i] = Math.min(1, Math.max(0, hits / expectedWeight));
+		}
+
+		return hitRatios;
+	}
+
+	//Hit ratio of LRU at a capacity, rounded down to a point of the curve
+	public double getHitRatio(int capacity)
+	{
+		int point = Math.min(capacity / step, histogram.length) - 1;
+
+		return (point < 0) ? 0 : getHitRatios()[point];
+	}
+
+	public int getStep()
+	{
+		return step;
+	}
+
+	public long getAccesses()
+	{
+		return accesses;
+	}
+
+	//The current rate, lowered from the initial one if the number of tracked pages was bounded
+	public double getSampleRate()
+	{
+		return (double) threshold / SAMPLE_RANGE;
+	}
+
+	public int getSampledPages()
+	{
+		return pages.size();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		Map<String, String> options = new LinkedHashMap<>();
+		TraceReader.Format format;
+		MissRatioCurve curve;
+		TraceSimulator simulator;
+		double[] hitRatios;
+		long start;
+
+		if(args.length == 0)
+		{
+			System.out.println("Usage: MissRatioCurve <trace file> [format=BINARY|TEXT] [maxCapacity=100000] [step=1000] [rate=1.0]"
+					+ " [maxSampledPages=1000000] [verify=1000,50000]");
+			return;
+		}
+
+		for(int i = 1; i < args.length; i++)
+		{
+			options.put(args[i].substring(0, args[i].indexOf('=')), args[i].substring(args[i].indexOf('=') + 1));
+		}
+
+		format = TraceReader.Format.valueOf(options.getOrDefault("format", "BINARY").toUpperCase());
+		curve = new MissRatioCurve(Integer.parseInt(options.getOrDefault("maxCapacity", "100000")), Integer.parseInt(options.getOrDefault("step", "1000")),
+				Double.parseDouble(options.getOrDefault("rate", "1.0")), Integer.parseInt(options.getOrDefault("maxSampledPages", "1000000")));
+		start = System.nanoTime();
+		curve.record(Paths.get(args[0]), format);
+		hitRatios = curve.getHitRatios();
+
+		System.out.println(String.format("%d accesses in %.1f seconds, sampled %d pages at rate %.6f",
+				curve.getAccesses(), (System.nanoTime() - start) / 1e9, curve.getSampledPages(), curve.getSampleRate()));
+		System.out.println(String.format("%10s %9s %9s", "capacity", "hitRatio", "missRatio"));
+
+		for(int i = 0; i < hitRatios.length; i++)
+		{
+			System.out.println(String.format("%10d %9.4f %9.4f", (i + 1) * curve.getStep(), hitRatios[i], 1 - hitRatios[i]));
+		}
+
+		if(options.containsKey("verify"))
+		{
+			simulator = new TraceSimulator(1);						//Key by key, so LRU sees the exact order the curve was computed from
+
+			for(String capacity:options.get("verify").split(","))
+			{
+				simulator.addCache("LRU", Integer.parseInt(capacity.trim()));
+			}
+
+			System.out.println(String.format("%10s %9s %9s", "capacity", "curve", "LRU"));
+
+			for(SimulationResult result:simulator.run(Paths.get(args[0]), format))
+			{
+				System.out.println(String.format("%10d %9.4f %9.4f", result.getCapacity(), curve.getHitRatio(result.getCapacity()), result.getHitRatio()));
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.hit.algorithm.simulator;
+
+/*
+ * What a single cache configuration achieved over a trace.
+ */
+public class SimulationResult
+{
+	private final String algorithm;
+	private final int capacity;
+	private final long accesses;
+	private final long hits;
+	private final long evictions;
+	private final long nanos;
+
+	public SimulationResult(String algorithm, int capacity, long accesses, long hits, long evictions, long nanos)
+	{
+		this.algorithm = algorithm;
+		this.capacity = capacity;
+		this.accesses = accesses;
+		this.hits = hits;
+		this.evictions = evictions;
+		this.nanos = nanos;
+	}
+
+	public String getAlgorithm()
+	{
+		return algorithm;
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	public long getAccesses()
+	{
+		return accesses;
+	}
+
+	public long getHits()
+	{
+		return hits;
+	}
+
+	public long getEvictions()
+	{
+		return evictions;
+	}
+
+	public double getHitRatio()
+	{
+		return (accesses == 0) ? 0 : (double) hits / accesses;
+	}
+
+	//Accesses per second of time spent inside the cache, not counting the time waiting for the trace
+	public double getThroughput()
+	{
+		return (nanos == 0) ? 0 : accesses / (nanos / 1e9);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%-14s %10d %14d %9.4f %14d %14.0f", algorithm, capacity, accesses, getHitRatio(), evictions, getThroughput());
+	}
+}
@@ -0,0 +1,120 @@
+package com.hit.algorithm.simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Streams the page numbers of a trace file in chunks, through a single reusable direct buffer,
+ * so traces of any size are read without loading them into memory.
+ * Supported formats:
+ * BINARY - consecutive 4 byte big endian page numbers
+ * TEXT - decimal page numbers separated by any non digit characters (new lines, spaces, commas...)
+ */
+public class TraceReader implements Closeable
+{
+	public enum Format { BINARY, TEXT }
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	private final FileChannel channel;
+	private final Format format;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private boolean endOfFile;
+	private long pendingNumber;
+	private boolean insideNumber;
+
+	public TraceReader(Path trace, Format format) throws IOException
+	{
+		this.channel = FileChannel.open(trace, StandardOpenOption.READ);
+		this.format = format;
+		buffer.flip();											//Starts empty, in read mode
+	}
+
+	/*
+	 * Reads the next page numbers of the trace.
+	 * Parameters:
+	 * keys - filled from its start
+	 * Returns:
+	 * number of page numbers read, 0 only at the end of the trace
+	 */
+	public int read(int[] keys) throws IOException
+	{
+		int count = 0;
+
+		while(count < keys.length)
+		{
+			if(!buffer.hasRemaining() || (format == Format.BINARY && buffer.remaining() < Integer.BYTES))
+			{
+				if(endOfFile || !fill())
+					break;
+			}
+
+			count = (format == Format.BINARY) ? decodeBinary(keys, count) : decodeText(keys, count);
+		}
+
+		if(count < keys.length && endOfFile && format == Format.TEXT && insideNumber)	//The last number is not followed by a separator
+		{
+			keys[count++] = (int) pendingNumber;
+			insideNumber = false;
+		}
+
+		return count;
+	}
+
+	//Keeps the unread bytes and reads more after them. Returns false when nothing more could be read
+	private boolean fill() throws IOException
+	{
+		int read;
+
+		buffer.compact();
+		read = channel.read(buffer);
+		buffer.flip();
+
+		if(read < 0)
+			endOfFile = true;
+
+		return read > 0;
+	}
+
+	private int decodeBinary(int[] keys, int count)
+	{
+		while(count < keys.length && buffer.remaining() >= Integer.BYTES)
+		{
+			keys[count++] = buffer.getInt();
+		}
+
+		return count;
+	}
+
+	private int decodeText(int[] keys, int count)
+	{
+		byte current;
+
+		while(count < keys.length && buffer.hasRemaining())
+		{
+			current = buffer.get();
+
+			if(current >= '0' && current <= '9')
+			{
+				pendingNumber = (insideNumber ? pendingNumber * 10 : 0) + (current - '0');
+				insideNumber = true;
+			}
+			else if(insideNumber)
+			{
+				keys[count++] = (int) pendingNumber;
+				insideNumber = false;
+			}
+		}
+
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
@@ -0,0 +1,262 @@
+package com.hit.algorithm.simulator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import com.hit.algorithm.ARCAlgoCacheImpl;
+import com.hit.algorithm.ClockAlgoCacheImpl;
+import com.hit.algorithm.IAlgoCache;
+import com.hit.algorithm.LRUAlgoCacheImpl;
+import com.hit.algorithm.MFUAlgoCacheImpl;
+import com.hit.algorithm.SampledAlgoCacheImpl;
+import com.hit.algorithm.SecondChanceAlgoCacheImpl;
+import com.hit.algorithm.WTinyLFUAlgoCacheImpl;
+
+/*
+ * Replays a page reference trace through caches to compare algorithms and capacities.
+ * Every page reference is a getElement, and a miss is followed by a putElement of the page, in batches.
+ * A page which missed earlier in the same batch is counted as a hit and put only once, as it would have been put by then.
+ *
+ * The trace is read once: a single reader streams it in chunks and hands every chunk to all the simulated caches,
+ * each of which runs on its own thread, so several algorithms and capacities are evaluated in one pass over the input.
+ * A slow cache holds the reader back through its bounded queue instead of buffering the trace in memory.
+ *
+ * Usage:
+ * java com.hit.algorithm.simulator.TraceSimulator <trace file> [format=BINARY|TEXT] [algorithms=LRU,SECOND_CHANCE,MFU]
+ *     [capacities=1000,10000] [batch=64]
+ */
+public class TraceSimulator
+{
+	private static final Map<String, IntFunction<IAlgoCache<Integer, Integer>>> ALGORITHMS = new LinkedHashMap<>();
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final int CHUNKS_IN_FLIGHT = 8;
+	private static final int[] END_OF_TRACE = new int[0];
+
+	static
+	{
+		ALGORITHMS.put("LRU", LRUAlgoCacheImpl::new);
+		ALGORITHMS.put("SECOND_CHANCE", SecondChanceAlgoCacheImpl::new);
+		ALGORITHMS.put("MFU", MFUAlgoCacheImpl::new);
+		ALGORITHMS.put("CLOCK", ClockAlgoCacheImpl::new);
+		ALGORITHMS.put("W_TINYLFU", WTinyLFUAlgoCacheImpl::new);
+		ALGORITHMS.put("ARC", ARCAlgoCacheImpl::new);
+		ALGORITHMS.put("SAMPLED_LRU", SampledAlgoCacheImpl::new);
+		ALGORITHMS.put("SAMPLED_MFU", size -> new SampledAlgoCacheImpl<>(size, SampledAlgoCacheImpl.Policy.MFU, 5, false));
+	}
+
+	private final List<String> names = new ArrayList<>();
+	private final List<Integer> capacities = new ArrayList<>();
+	private final List<IntFunction<? extends IAlgoCache<Integer, Integer>>> algorithms = new ArrayList<>();
+	private final int batchSize;
+
+	public TraceSimulator(int batchSize)
+	{
+		this.batchSize = (batchSize > 0) ? batchSize : 1;
+	}
+
+	/*
+	 * Adds a cache to simulate.
+	 * Parameters:
+	 * name - shown in the results
+	 * capacity - of the cache
+	 * algorithm - creates the cache given its capacity, for example LRUAlgoCacheImpl::new
+	 */
+	public TraceSimulator addCache(String name, int capacity, IntFunction<? extends IAlgoCache<Integer, Integer>> algorithm)
+	{
+		names.add(name);
+		capacities.add(capacity);
+		algorithms.add(algorithm);
+
+		return this;
+	}
+
+	//Adds a cache of one of the known algorithms: LRU, SECOND_CHANCE, MFU, CLOCK, W_TINYLFU, ARC, SAMPLED_LRU or SAMPLED_MFU
+	public TraceSimulator addCache(String algorithmName, int capacity)
+	{
+		IntFunction<IAlgoCache<Integer, Integer>> algorithm = ALGORITHMS.get(algorithmName.toUpperCase());
+
+		if(algorithm == null)
+			throw new IllegalArgumentException("Unknown algorithm " + algorithmName + ", expected one of " + ALGORITHMS.keySet());
+
+		return addCache(algorithmName.toUpperCase(), capacity, algorithm);
+	}
+
+	/*
+	 * Replays the trace through all the added caches in parallel.
+	 * Returns:
+	 * the results in the order the caches were added
+	 */
+	public List<SimulationResult> run(Path trace, TraceReader.Format format) throws IOException, InterruptedException
+	{
+		List<Worker> workers = new ArrayList<>();
+		List<SimulationResult> results = new ArrayList<>();
+		int[] chunk;
+		int count;
+
+		for(int i = 0; i < names.size(); i++)
+		{
+			workers.add(new Worker(names.get(i), capacities.get(i), algorithms.get(i).apply(capacities.get(i))));
+			workers.get(i).start();
+		}
+
+		try (TraceReader reader = new TraceReader(trace, format))
+		{
+			do
+			{
+				chunk = new int[CHUNK_SIZE];							//Workers only read a chunk, so all of them share it
+				count = reader.read(chunk);
+
+				if(count > 0)
+					publish(workers, (count == CHUNK_SIZE) ? chunk : Arrays.copyOf(chunk, count));
+			}
+			while(count == CHUNK_SIZE);
+		}
+		finally
+		{
+			publish(workers, END_OF_TRACE);
+		}
+
+		for(Worker worker:workers)
+		{
+			worker.join();
+
+			if(worker.failure != null)
+				throw new IllegalStateException("Simulation of " + worker.name + " failed", worker.failure);
+
+			results.add(worker.result);
+		}
+
+		return results;
+	}
+
+	private static void publish(List<Worker> workers, int[] chunk) throws InterruptedException
+	{
+		for(Worker worker:workers)
+		{
+			while(worker.isAlive() && !worker.chunks.offer(chunk, 100, TimeUnit.MILLISECONDS))
+			{
+				//A worker which failed stops taking chunks, so don't wait for it forever
+			}
+		}
+	}
+
+	//Runs one cache over the chunks of the trace
+	private final class Worker extends Thread
+	{
+		private final String name;
+		private final int capacity;
+		private final IAlgoCache<Integer, Integer> cache;
+		private final BlockingQueue<int[]> chunks = new ArrayBlockingQueue<>(CHUNKS_IN_FLIGHT);
+		private SimulationResult result;
+		private Throwable failure;
+
+		private Worker(String name, int capacity, IAlgoCache<Integer, Integer> cache)
+		{
+			super("simulator-" + name + "-" + capacity);
+			this.name = name;
+			this.capacity = capacity;
+			this.cache = cache;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run()
+		{
+			List<Integer> batch = new ArrayList<>(batchSize);
+			List<Integer> missing = new ArrayList<>(batchSize);
+			Set<Integer> missedInBatch = new HashSet<>();
+			List<Integer> values;
+			long accesses = 0, hits = 0, evictions = 0, nanos = 0, start;
+			int[] chunk;
+
+			try
+			{
+				while((chunk = chunks.take()) != END_OF_TRACE)
+				{
+					start = System.nanoTime();
+
+					for(int offset = 0; offset < chunk.length; offset += batchSize)
+					{
+						batch.clear();
+						missing.clear();
+						missedInBatch.clear();
+
+						for(int i = offset; i < Math.min(offset + batchSize, chunk.length); i++)
+						{
+							batch.add(chunk[i]);
+						}
+
+						values = cache.getElement(batch);
+
+						for(int i = 0; i < values.size(); i++)
+						{
+							if(values.get(i) == null && missedInBatch.add(batch.get(i)))
+								missing.add(batch.get(i));
+						}
+
+						for(Integer replaced:cache.putElement(missing, missing))
+						{
+							if(replaced != null)
+								evictions++;
+						}
+
+						accesses += batch.size();
+						hits += batch.size() - missing.size();
+					}
+
+					nanos += System.nanoTime() - start;
+				}
+
+				result = new SimulationResult(name, capacity, accesses, hits, evictions, nanos);
+			}
+			catch (Throwable e)											//Also errors, such as running out of memory, so run reports them
+			{
+				failure = e;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		Map<String, String> options = new LinkedHashMap<>();
+		TraceSimulator simulator;
+
+		if(args.length == 0)
+		{
+			System.out.println("Usage: TraceSimulator <trace file> [format=BINARY|TEXT] [algorithms=LRU,MFU] [capacities=1000,10000] [batch=64]");
+			return;
+		}
+
+		for(int i = 1; i < args.length; i++)
+		{
+			options.put(args[i].substring(0, args[i].indexOf('=')), args[i].substring(args[i].indexOf('=') + 1));
+		}
+
+		simulator = new TraceSimulator(Integer.parseInt(options.getOrDefault("batch", "64")));
+
+		for(String algorithm:options.getOrDefault("algorithms", "LRU,SECOND_CHANCE,MFU").split(","))
+			for(String capacity:options.getOrDefault("capacities", "1000").split(","))
+			{
+				simulator.addCache(algorithm.trim(), Integer.parseInt(capacity.trim()));
+			}
+
+		System.out.println(String.format("%-14s %10s %14s %9s %14s %14s", "algorithm", "capacity", "accesses", "hitRatio", "evictions", "accesses/sec"));
+
+		for(SimulationResult result:simulator.run(Paths.get(args[0]), TraceReader.Format.valueOf(options.getOrDefault("format", "BINARY").toUpperCase())))
+		{
+			System.out.println(result);
+		}
+	}
+}
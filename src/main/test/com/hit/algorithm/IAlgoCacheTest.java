@@ -2,10 +2,32 @@ package com.hit.algorithm;
 
 import static org.junit.Assert.*;
 import static org.hamcrest.CoreMatchers.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
+import com.hit.algorithm.server.CacheClient;
+import com.hit.algorithm.server.CacheServer;
+import com.hit.algorithm.simulator.MissRatioCurve;
+import com.hit.algorithm.simulator.SimulationResult;
+import com.hit.algorithm.simulator.TraceReader;
+import com.hit.algorithm.simulator.TraceSimulator;
 
 public class IAlgoCacheTest
 {
@@ -158,6 +180,50 @@ public class IAlgoCacheTest
 		putElementsInAlgorithm();
 	}
 	
+	//Perform a test for the concurrent cache with a single LRU segment, which has to behave exactly as LRU
+	@Test
+	public void testConcurrentLRU()
+	{
+		System.out.println("\nConcurrent LRU Algorithm test:");
+		algorithmTested = new ConcurrentAlgoCacheImpl<Integer,String>(5, 1, LRUAlgoCacheImpl::new);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+		getElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(5, 4, 1, 2, 8, 9, 10);
+		valuesToEnter = Arrays.asList("Fifth","Fourth","First","Second","Eighth","Ninth","Tenth");
+		expectedValues = Arrays.asList(null,null,"Third","Sixth","Seventh","Fifth","Fourth");
+		putElementsInAlgorithm();
+	}
+
+	//Perform a test for the CLOCK implementation of Second Chance, which has to replace the same pages
+	@Test
+	public void testClock()
+	{
+		System.out.println("\nClock Algorithm test:");
+		algorithmTested = new ClockAlgoCacheImpl<Integer,String>(5);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();	//3-7 in memory
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third",null,null,"Sixth","Seventh");
+		getElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(1, 2, 8, 9, 10, 5, 4);
+		valuesToEnter = Arrays.asList("First","Second","Eighth","Ninth","Tenth","Fifth","Fourth");
+		expectedValues = Arrays.asList("Fourth","Fifth","Third","First","Second","Sixth","Seventh");
+		putElementsInAlgorithm();
+	}
+
 	//Perform a test for MFU algorithm
 	@Test
 	public void testMFU()
@@ -181,4 +247,1187 @@ public class IAlgoCacheTest
 		expectedValues = Arrays.asList(null, null, null,"Fourth","Fifth","Third","Sixth");
 		putElementsInAlgorithm();	//replacement order: [4 with counter = 3] , [5 with counter = 2] , [3 with counter = 1] , and then the rest	
 	}
+
+	//Perform a test for int keyed LRU algorithm
+	@Test
+	public void testIntLRU()
+	{
+		System.out.println("\nInt keyed LRU algorithm test:");
+		algorithmTested = new IntLRUAlgoCacheImpl<String>(5);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+		getElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(5, 4, 1, 2, 8, 9, 10);
+		valuesToEnter = Arrays.asList("Fifth","Fourth","First","Second","Eighth","Ninth","Tenth");
+		expectedValues = Arrays.asList(null,null,"Third","Sixth","Seventh","Fifth","Fourth");
+		putElementsInAlgorithm();
+	}
+
+	//Perform a test for int keyed Second Chance algorithm
+	@Test
+	public void testIntSecondChance()
+	{
+		System.out.println("\nInt keyed Second Chance algorithm test:");
+		algorithmTested = new IntSecondChanceAlgoCacheImpl<String>(5);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();	//3-7 in memory
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third",null,null,"Sixth","Seventh");
+		getElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(1, 2, 8, 9, 10, 5, 4);
+		valuesToEnter = Arrays.asList("First","Second","Eighth","Ninth","Tenth","Fifth","Fourth");
+		expectedValues = Arrays.asList("Fourth","Fifth","Third","First","Second","Sixth","Seventh");
+		putElementsInAlgorithm();
+	}
+
+	//Perform a test for int keyed MFU algorithm
+	@Test
+	public void testIntMFU()
+	{
+		System.out.println("\nInt keyed MFU algorithm test:");
+		algorithmTested = new IntMFUAlgoCacheImpl<String>(5);
+
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();	//3-7 in memory
+
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 5, 4);
+		expectedValues = Arrays.asList("Third",null,null,"Fifth","Fourth");
+		getElementsInAlgorithm();	//3,5,4 are present
+
+		keysToGetOrPut = Arrays.asList(5, 4, 4, 1, 2, 8, 9);
+		valuesToEnter = Arrays.asList("Fifth","Fourth","Fourth","First","Second","Eighth","Ninth");
+		expectedValues = Arrays.asList(null, null, null,"Fourth","Fifth","Third","Sixth");
+		putElementsInAlgorithm();	//replacement order: [4 with counter = 3] , [5 with counter = 2] , [3 with counter = 1] , and then the rest
+	}
+
+	//Perform a test for the statistics of a cache, checking the counters after the LRU scenario
+	@Test
+	public void testStats()
+	{
+		System.out.println("\nStatistics test:");
+		algorithmTested = new LRUAlgoCacheImpl<Integer,String>(5, true);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+		getElementsInAlgorithm();
+
+		algorithmTested.removeElement(Arrays.asList(3, 12));
+
+		CacheStats stats = algorithmTested.getStatsAndReset();
+		System.out.println(stats);
+		assertThat(stats.getHits(), is(3L));
+		assertThat(stats.getMisses(), is(2L));
+		assertThat(stats.getEvictions(), is(2L));
+		assertThat(stats.getPuts(), is(7L));
+		assertThat(stats.getRemoves(), is(1L));
+		assertThat(stats.getSize(), is(4L));
+		assertThat(algorithmTested.getStats().getHits(), is(0L));
+		assertNull(new LRUAlgoCacheImpl<Integer,String>(5).getStats());
+	}
+
+	//Perform a test for a loading cache: misses are loaded in one batch, and a key being loaded is not loaded again by another thread
+	@Test
+	public void testLoading() throws InterruptedException
+	{
+		System.out.println("\nLoading cache test:");
+		List<List<Integer>> loadedBatches = new ArrayList<List<Integer>>();
+		CountDownLatch loadStarted = new CountDownLatch(1);
+		CountDownLatch finishLoad = new CountDownLatch(1);
+		LoadingAlgoCacheImpl<Integer, String> loadingCache;
+		Thread otherThread;
+
+		algorithmTested = loadingCache = new LoadingAlgoCacheImpl<Integer, String>(new ConcurrentAlgoCacheImpl<Integer, String>(5, 1, LRUAlgoCacheImpl::new), keys ->
+		{
+			synchronized(loadedBatches)
+			{
+				loadedBatches.add(keys);
+			}
+
+			if(keys.contains(9) && loadStarted.getCount() > 0)	//Hold the first load of 9 until the test thread asked for it as well
+			{
+				loadStarted.countDown();
+
+				try
+				{
+					finishLoad.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			}
+
+			List<String> values = new ArrayList<String>();
+
+			for(Integer key:keys)
+			{
+				values.add(key < 8 ? initialValues.get(key - 1) : null);
+			}
+
+			return values;
+		});
+
+		keysToGetOrPut = Arrays.asList(1, 2);
+		valuesToEnter = Arrays.asList("First", "Second");
+		expectedValues = Arrays.asList(null, null);
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(1, 3, 2, 4, 3, 8);
+		expectedValues = Arrays.asList("First", "Third", "Second", "Fourth", "Third", null);
+		getElementsInAlgorithm();	//3, 4 and 8 are loaded in one batch, 8 has no value
+		assertThat(loadedBatches, is(Arrays.asList(Arrays.asList(3, 4, 8))));
+
+		otherThread = new Thread(() -> algorithmTested.getElement(Arrays.asList(9)));
+		otherThread.start();
+		loadStarted.await();				//The other thread is loading 9 now
+
+		loadingCache.setWaitListener(key ->	//Let the load finish once this thread is going to wait for it
+		{
+			if(key == 9)
+				finishLoad.countDown();
+		});
+		keysToGetOrPut = Arrays.asList(9, 3);
+		expectedValues = Arrays.asList(null, "Third");
+		getElementsInAlgorithm();
+		otherThread.join();
+		assertThat(loadedBatches.size(), is(2));
+	}
+
+	//Perform a test for a swap file under LRU: replaced pages are swapped out, swapped back in on a miss, and dropped when the swap file is full
+	@Test
+	public void testSwap() throws IOException
+	{
+		System.out.println("\nSwap file test:");
+		Path swapFile = Files.createTempFile("pages", ".swap");
+		List<ByteBuffer> pages = new ArrayList<ByteBuffer>();
+
+		for(String value:initialValues)
+		{
+			pages.add(ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)));
+		}
+
+		try (SwapAlgoCacheImpl<Integer> swapCache = new SwapAlgoCacheImpl<Integer>(3, 2, 16, swapFile, LRUAlgoCacheImpl::new, true))
+		{
+			assertThat(swapCache.putElement(initialKeys.subList(0, 5), pages.subList(0, 5)), is(Arrays.asList((ByteBuffer) null, null, null, null, null)));
+			System.out.println(swapCache);	//3-5 in RAM, 1-2 swapped out
+
+			assertThat(swapCache.getElement(Arrays.asList(1, 4, 6)), is(Arrays.asList(pages.get(0), pages.get(3), null)));
+			System.out.println(swapCache);	//1 swapped in instead of 3
+
+			assertThat(swapCache.putElement(Arrays.asList(6), pages.subList(5, 6)), is(Arrays.asList(pages.get(1))));
+			System.out.println(swapCache);	//5 swapped out, so 2 is dropped
+
+			assertThat(swapCache.getElement(Arrays.asList(2, 3, 5)), is(Arrays.asList(null, pages.get(2), pages.get(4))));
+
+			assertThat(swapCache.getRamStats().getHits(), is(1L));
+			assertThat(swapCache.getRamStats().getMisses(), is(5L));
+			assertThat(swapCache.getSwapStats().getHits(), is(3L));
+			assertThat(swapCache.getSwapStats().getMisses(), is(2L));
+			assertThat(swapCache.getStats().getHitRatio(), is(4 / 6.0));
+		}
+		finally
+		{
+			Files.deleteIfExists(swapFile);
+		}
+	}
+
+	//Perform a test for LRU with a capacity of 15 characters instead of a number of pages: a single put may replace several pages,
+	//of which the list of evicted values gets all, and the returned list the first one for each key
+	@Test
+	public void testWeightedLRU()
+	{
+		List<String> evictedValues = new ArrayList<>();
+
+		System.out.println("\nWeighted LRU algorithm test:");
+		algorithmTested = new LRUAlgoCacheImpl<Integer,String>(15, (key, value) -> value.length());
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, "First", "Second", "Third", "Fourth", "Fifth");
+		putElementsInAlgorithm();	//Sixth and Seventh in memory, weighing 12
+
+		//8 fills the whole cache, 9 can't fit at all
+		assertThat(algorithmTested.putElement(Arrays.asList(8, 9), Arrays.asList("EighthPageValue", "NinthPageIsTooHeavy"), evictedValues),
+				is(Arrays.asList("Sixth", "NinthPageIsTooHeavy")));
+		assertThat(evictedValues, is(Arrays.asList("Sixth", "Seventh", "NinthPageIsTooHeavy")));
+
+		keysToGetOrPut = Arrays.asList(8, 9, 7);
+		expectedValues = Arrays.asList("EighthPageValue", null, null);
+		getElementsInAlgorithm();
+	}
+
+	//Perform a test for Second Chance with a capacity of 15 characters
+	@Test
+	public void testWeightedSecondChance()
+	{
+		System.out.println("\nWeighted Second Chance algorithm test:");
+		algorithmTested = new SecondChanceAlgoCacheImpl<Integer,String>(15, (key, value) -> value.length());
+		testWeighted("Seventh", "Sixth");	//6 gets a second chance
+	}
+
+	//Perform a test for MFU with a capacity of 15 characters
+	@Test
+	public void testWeightedMFU()
+	{
+		System.out.println("\nWeighted MFU algorithm test:");
+		algorithmTested = new MFUAlgoCacheImpl<Integer,String>(15, (key, value) -> value.length());
+		testWeighted("Sixth", "Seventh");	//6 was used the most
+	}
+
+	/*
+	 * Fills the weighted cache and uses 6, puts 8 and 9 which replace a page each, then a page heavier than the cache,
+	 * which replaces itself, and 11 which replaces both 8 and 9
+	 * Parameters:
+	 * replacedBy8 - value of the page which 8 replaces
+	 * replacedBy9 - value of the page which 9 replaces
+	 */
+	private void testWeighted(String replacedBy8, String replacedBy9)
+	{
+		List<String> evictedValues = new ArrayList<>();
+		
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, "First", "Second", "Third", "Fourth", "Fifth");
+		putElementsInAlgorithm();	//Sixth and Seventh in memory, weighing 12
+		
+		keysToGetOrPut = Arrays.asList(6);
+		expectedValues = Arrays.asList("Sixth");
+		getElementsInAlgorithm();
+		
+		assertThat(algorithmTested.putElement(Arrays.asList(8, 9), Arrays.asList("Eighth", "NinthPage"), evictedValues),
+				is(Arrays.asList(replacedBy8, replacedBy9)));
+		
+		evictedValues.clear();
+		assertThat(algorithmTested.putElement(Arrays.asList(10, 11), Arrays.asList("TenthPageIsTooHeavy", "EleventhPage"), evictedValues),
+				is(Arrays.asList("TenthPageIsTooHeavy", "Eighth")));
+		assertThat(evictedValues, is(Arrays.asList("TenthPageIsTooHeavy", "Eighth", "NinthPage")));
+		
+		try
+		{
+			algorithmTested.putElement(new Integer[] {12}, new String[] {"Twelfth"}, 1, new String[1]);
+			fail("A weighted cache can't report all the replaced pages in an array of one per key");
+		}
+		catch (UnsupportedOperationException e)
+		{
+		}
+		
+		keysToGetOrPut = Arrays.asList(8, 9, 10, 11);
+		expectedValues = Arrays.asList(null, null, null, "EleventhPage");
+		getElementsInAlgorithm();
+	}
+
+	//Perform a test for the concurrent cache and the removal listener over weighted LRU, where a put may replace several pages
+	@Test
+	public void testWeightedWrappers()
+	{
+		System.out.println("\nWrappers of weighted algorithms test:");
+		List<RemovalNotification<Integer, String>> notifications = new ArrayList<RemovalNotification<Integer, String>>();
+		List<String> evictedValues = new ArrayList<>();
+		algorithmTested = new ConcurrentAlgoCacheImpl<Integer,String>(1, 1, size -> new LRUAlgoCacheImpl<>(15, (key, value) -> value.length()));
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, "First", "Second", "Third", "Fourth", "Fifth");
+		putElementsInAlgorithm();
+
+		assertThat(algorithmTested.putElement(Arrays.asList(8, 9), Arrays.asList("EighthPageValue", "NinthPageIsTooHeavy"), evictedValues),
+				is(Arrays.asList("Sixth", "NinthPageIsTooHeavy")));
+		assertThat(evictedValues, is(Arrays.asList("Sixth", "Seventh", "NinthPageIsTooHeavy")));
+
+		algorithmTested = new ListeningAlgoCacheImpl<Integer,String>(1, notifications::add,
+				size -> new LRUAlgoCacheImpl<>(15, (key, entry) -> entry.getValue().length()));
+
+		keysToGetOrPut = Arrays.asList(6, 7, 8, 9);
+		valuesToEnter = Arrays.asList("Sixth", "Seventh", "EighthPageValue", "NinthPageIsTooHeavy");
+		expectedValues = Arrays.asList(null, null, "Sixth", "NinthPageIsTooHeavy");
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(8, 9);
+		expectedValues = Arrays.asList("EighthPageValue", null);
+		getElementsInAlgorithm();
+		assertThat(notifications.toString(), is("[6=Sixth (EVICTED), 7=Seventh (EVICTED), 9=NinthPageIsTooHeavy (EVICTED)]"));
+	}
+
+	//Perform a test for W-TinyLFU algorithm: a window of 1 page, and a main region of 4 pages of which 3 may be protected
+	@Test
+	public void testWTinyLFU()
+	{
+		System.out.println("\nW-TinyLFU algorithm test:");
+		algorithmTested = new WTinyLFUAlgoCacheImpl<Integer,String>(5);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "Fifth", "Sixth");
+		putElementsInAlgorithm();	//1-4 on probation, 7 in the window. 5 and 6 were not used more than the pages on probation
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 7, 1);
+		expectedValues = Arrays.asList("Third", null, null, "Seventh", "First");
+		getElementsInAlgorithm();	//3 and 1 are protected now
+
+		keysToGetOrPut = Arrays.asList(8, 9, 3, 2);
+		valuesToEnter = Arrays.asList("Eighth", "Ninth", "Third", "Second");
+		expectedValues = Arrays.asList("Second", "Eighth", null, "Ninth");
+		putElementsInAlgorithm();	//7 was used twice so it replaces 2, while 8 and 9 were used once and are not admitted
+	}
+
+	//Perform a test for ARC algorithm
+	@Test
+	public void testARC()
+	{
+		System.out.println("\nARC algorithm test:");
+		algorithmTested = new ARCAlgoCacheImpl<Integer,String>(5);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();	//T1 holds all the memory, so 1 and 2 are replaced without being remembered
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+		getElementsInAlgorithm();	//3, 6 and 7 were used twice, they move to T2
+
+		keysToGetOrPut = Arrays.asList(8, 4, 9, 2);
+		valuesToEnter = Arrays.asList("Eighth", "Fourth", "Ninth", "Second");
+		expectedValues = Arrays.asList("Fourth", "Fifth", "Third", "Eighth");
+		putElementsInAlgorithm();	//4 is found in B1, so T1 grows to a target of 1 page and 3 is replaced from T2
+
+		keysToGetOrPut = Arrays.asList(3);
+		valuesToEnter = Arrays.asList("Third");
+		expectedValues = Arrays.asList("Ninth");
+		putElementsInAlgorithm();	//3 is found in B2, so the target of T1 goes back to 0
+	}
+
+	//Perform a test for pages which expire 100 milliseconds after they were put, under LRU
+	@Test
+	public void testExpiring()
+	{
+		System.out.println("\nExpiring LRU algorithm test:");
+		long[] now = {0};
+		algorithmTested = new ExpiringAlgoCacheImpl<Integer,String>(5, 100, 0, TimeUnit.MILLISECONDS, () -> now[0], LRUAlgoCacheImpl::new);
+
+		keysToGetOrPut = initialKeys.subList(0, 3);
+		valuesToEnter = initialValues.subList(0, 3);
+		expectedValues = Arrays.asList(null, null, null);
+		putElementsInAlgorithm();
+
+		now[0] = TimeUnit.MILLISECONDS.toNanos(50);
+		keysToGetOrPut = Arrays.asList(4, 5, 1);
+		valuesToEnter = Arrays.asList("Fourth", "Fifth", "First");
+		expectedValues = Arrays.asList(null, null, null);
+		putElementsInAlgorithm();	//1 is put again, so it lives until 150
+
+		now[0] = TimeUnit.MILLISECONDS.toNanos(120);
+		keysToGetOrPut = Arrays.asList(2, 4, 1);
+		expectedValues = Arrays.asList(null, "Fourth", "First");
+		getElementsInAlgorithm();	//2 and 3 expired at 100
+
+		keysToGetOrPut = Arrays.asList(6, 7, 8);
+		valuesToEnter = Arrays.asList("Sixth", "Seventh", "Eighth");
+		expectedValues = Arrays.asList(null, null, "Fifth");
+		putElementsInAlgorithm();	//6 and 7 take the room of the expired pages, only 8 replaces a live page
+
+		now[0] = TimeUnit.SECONDS.toNanos(3600);
+		keysToGetOrPut = Arrays.asList(1, 4, 6, 7, 8);
+		expectedValues = Arrays.asList(null, null, null, null, null);
+		getElementsInAlgorithm();
+	}
+
+	//Perform a test for expiring pages under LRU with a capacity of 15 characters, where a put may replace several pages or the page itself
+	@Test
+	public void testWeightedExpiring()
+	{
+		System.out.println("\nExpiring weighted LRU algorithm test:");
+		List<RemovalNotification<Integer, String>> notifications = new ArrayList<RemovalNotification<Integer, String>>();
+		long[] now = {0};
+		ExpiringAlgoCacheImpl<Integer, String> expiringCache = new ExpiringAlgoCacheImpl<Integer,String>(1, 100, 0, TimeUnit.MILLISECONDS, () -> now[0],
+				size -> new LRUAlgoCacheImpl<>(15, (key, entry) -> entry.value.length()));
+		expiringCache.setRemovalListener(notifications::add);
+		algorithmTested = expiringCache;
+
+		keysToGetOrPut = Arrays.asList(6, 7, 8, 9);
+		valuesToEnter = Arrays.asList("Sixth", "Seventh", "EighthPageValue", "NinthPageIsTooHeavy");
+		expectedValues = Arrays.asList(null, null, "Sixth", "NinthPageIsTooHeavy");
+		putElementsInAlgorithm();	//8 replaces both 6 and 7, 9 replaces itself
+		assertThat(notifications.toString(), is("[6=Sixth (EVICTED), 7=Seventh (EVICTED), 9=NinthPageIsTooHeavy (EVICTED)]"));
+
+		keysToGetOrPut = Arrays.asList(6, 7, 8, 9);
+		expectedValues = Arrays.asList(null, null, "EighthPageValue", null);
+		getElementsInAlgorithm();
+
+		notifications.clear();
+		now[0] = TimeUnit.MILLISECONDS.toNanos(150);
+		keysToGetOrPut = Arrays.asList(8, 9);
+		expectedValues = Arrays.asList(null, null);
+		getElementsInAlgorithm();	//Only 8 was left to expire
+		assertThat(notifications.toString(), is("[8=EighthPageValue (EXPIRED)]"));
+	}
+
+	//Perform the LRU test through a client of a server on the loopback address
+	@Test
+	public void testServer() throws IOException
+	{
+		System.out.println("\nCache server test:");
+
+		try (CacheServer<Integer, String> server = new CacheServer<Integer, String>(new LRUAlgoCacheImpl<Integer,String>(5), Codecs.INTEGER, Codecs.STRING);
+				CacheClient<Integer, String> client = new CacheClient<Integer, String>(server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)), Codecs.INTEGER, Codecs.STRING))
+		{
+			algorithmTested = client;
+
+			keysToGetOrPut = initialKeys;
+			valuesToEnter = initialValues;
+			expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+			putElementsInAlgorithm();
+
+			keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+			expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+			getElementsInAlgorithm();
+
+			client.removeElement(Arrays.asList(6));
+			keysToGetOrPut = Arrays.asList(5, 4, 1, 2, 8, 9, 10);
+			valuesToEnter = Arrays.asList("Fifth","Fourth","First","Second","Eighth","Ninth","Tenth");
+			expectedValues = Arrays.asList(null,null,null,"Third","Seventh","Fifth","Fourth");
+			putElementsInAlgorithm();
+		}
+	}
+
+	//Send a put whose value claims to be 2GB long: the server answers with an error without allocating it, and goes on serving
+	@Test
+	public void testServerMalformedRequest() throws IOException
+	{
+		System.out.println("\nCache server malformed request test:");
+		ByteBuffer request = ByteBuffer.allocate(17), response = ByteBuffer.allocate(1024);
+		byte[] message;
+		
+		try (CacheServer<Integer, byte[]> server = new CacheServer<Integer, byte[]>(new LRUAlgoCacheImpl<Integer, byte[]>(5), Codecs.INTEGER, Codecs.BYTES))
+		{
+			InetSocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			
+			try (SocketChannel channel = SocketChannel.open(address))
+			{
+				request.putInt(13).put((byte) 2).putInt(1).putInt(1).putInt(Integer.MAX_VALUE).flip();	//A put of one key, its value cut short
+				channel.write(request);
+				
+				while(response.position() < Integer.BYTES || response.position() < Integer.BYTES + response.getInt(0))
+				{
+					assertTrue(channel.read(response) >= 0);
+				}
+			}
+			
+			response.flip().position(Integer.BYTES);
+			assertThat(response.get(), is((byte) 1));							//An error
+			message = new byte[response.getInt()];
+			response.get(message);
+			System.out.println(new String(message, StandardCharsets.UTF_8));
+			assertTrue(new String(message, StandardCharsets.UTF_8).contains("BufferUnderflowException"));
+			
+			try (CacheClient<Integer, byte[]> client = new CacheClient<Integer, byte[]>(address, Codecs.INTEGER, Codecs.BYTES))
+			{
+				client.putElement(Arrays.asList(1), Arrays.asList(new byte[] {1, 2, 3}));
+				assertTrue(Arrays.equals(client.getElement(Arrays.asList(1)).get(0), new byte[] {1, 2, 3}));
+			}
+			
+			assertNull(server.getFailure());
+		}
+		
+		request.clear();
+		request.putInt(-1).flip();
+		
+		try
+		{
+			Codecs.BYTE_BUFFER.read(request);
+			fail("A negative length was read");
+		}
+		catch (BufferUnderflowException e)
+		{
+		}
+	}
+
+	//Perform a snapshot and a restore of each algorithm, after which the restored cache has to replace the same pages as the original
+	@Test
+	public void testSnapshot() throws IOException
+	{
+		System.out.println("\nSnapshot test:");
+		Path snapshotFile = Files.createTempFile("cache", ".snapshot");
+		List<Integer> laterKeys = Arrays.asList(8, 9, 3, 10, 11);
+		List<String> laterValues = Arrays.asList("Eighth", "Ninth", "Third", "Tenth", "Eleventh");
+
+		try
+		{
+			LRUAlgoCacheImpl<Integer, String> lru = new LRUAlgoCacheImpl<Integer, String>(5);
+			LRUAlgoCacheImpl<Integer, String> restoredLru = new LRUAlgoCacheImpl<Integer, String>(5);
+			lru.putElement(initialKeys, initialValues);
+			lru.getElement(Arrays.asList(4, 6, 3));
+			lru.putElementWithLowPriority(Arrays.asList(12), Arrays.asList("Twelfth"));	//Restored as a low priority page, which is replaced first
+			lru.writeSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+			restoredLru.readSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+			System.out.println(restoredLru);
+			assertThat(restoredLru.toString(), is(lru.toString()));
+			assertThat(restoredLru.putElement(laterKeys, laterValues), is(lru.putElement(laterKeys, laterValues)));
+
+			SecondChanceAlgoCacheImpl<Integer, String> secondChance = new SecondChanceAlgoCacheImpl<Integer, String>(5);
+			SecondChanceAlgoCacheImpl<Integer, String> restoredSecondChance = new SecondChanceAlgoCacheImpl<Integer, String>(5);
+			secondChance.putElement(initialKeys, initialValues);
+			secondChance.getElement(Arrays.asList(4, 6, 3));
+			secondChance.writeSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+			restoredSecondChance.readSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+			System.out.println(restoredSecondChance);
+			assertThat(restoredSecondChance.toString(), is(secondChance.toString()));
+			assertThat(restoredSecondChance.putElement(laterKeys, laterValues), is(secondChance.putElement(laterKeys, laterValues)));
+
+			MFUAlgoCacheImpl<Integer, String> mfu = new MFUAlgoCacheImpl<Integer, String>(5);
+			MFUAlgoCacheImpl<Integer, String> restoredMfu = new MFUAlgoCacheImpl<Integer, String>(3);
+			mfu.putElement(initialKeys, initialValues);
+			mfu.getElement(Arrays.asList(4, 6, 3, 6));
+			mfu.writeSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+			restoredMfu.readSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+			System.out.println(restoredMfu);	//A smaller cache, which drops 6 with the maximum use counter and then 4, which got to 2 before 3
+			assertThat(restoredMfu.getElement(Arrays.asList(6, 3, 4, 5, 7)), is(Arrays.asList(null, "Third", null, "Fifth", "Seventh")));
+
+			try
+			{
+				restoredLru.readSnapshot(snapshotFile, Codecs.INTEGER, Codecs.STRING);
+				fail("An MFU snapshot was restored to LRU");
+			}
+			catch (IOException e)
+			{
+				assertThat(restoredLru.getElement(Arrays.asList(3)), is(Arrays.asList((String) null)));
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(snapshotFile);
+		}
+	}
+
+	//Perform the LRU test while listening to the removed pages, synchronously, then the same pages through the asynchronous listener
+	@Test
+	public void testRemovalListener()
+	{
+		System.out.println("\nRemoval listener test:");
+		List<RemovalNotification<Integer, String>> notifications = new ArrayList<RemovalNotification<Integer, String>>();
+		List<RemovalNotification<Integer, String>> asyncNotifications = Collections.synchronizedList(new ArrayList<RemovalNotification<Integer, String>>());
+		long[] now = {0};
+		algorithmTested = new ListeningAlgoCacheImpl<Integer,String>(5, notifications::add, LRUAlgoCacheImpl::new);
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+		getElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(5, 4, 1, 2, 8, 9, 10);
+		valuesToEnter = Arrays.asList("Fifth","Fourth","First","Second","Eighth","Ninth","Tenth");
+		expectedValues = Arrays.asList(null,null,"Third","Sixth","Seventh","Fifth","Fourth");
+		putElementsInAlgorithm();
+
+		algorithmTested.removeElement(Arrays.asList(1, 11));
+		System.out.println(notifications);
+		assertThat(notifications.toString(), is("[1=First (EVICTED), 2=Second (EVICTED), 5=Fifth (REPLACED), 4=Fourth (REPLACED), 3=Third (EVICTED), "
+				+ "6=Sixth (EVICTED), 7=Seventh (EVICTED), 5=Fifth (EVICTED), 4=Fourth (EVICTED), 1=First (EXPLICIT)]"));
+
+		ExpiringAlgoCacheImpl<Integer, String> expiringCache = new ExpiringAlgoCacheImpl<Integer,String>(5, 100, 0, TimeUnit.MILLISECONDS, () -> now[0], LRUAlgoCacheImpl::new);
+		notifications.clear();
+		expiringCache.setRemovalListener(notifications::add);
+		expiringCache.putElement(initialKeys.subList(0, 2), initialValues.subList(0, 2));
+		now[0] = TimeUnit.MILLISECONDS.toNanos(150);
+		expiringCache.getElement(initialKeys.subList(0, 2));
+		assertThat(notifications.toString(), is("[1=First (EXPIRED), 2=Second (EXPIRED)]"));
+
+		try (AsyncRemovalListener<Integer, String> asyncListener = new AsyncRemovalListener<Integer, String>(asyncNotifications::add, 2, 2))
+		{
+			algorithmTested = new ListeningAlgoCacheImpl<Integer,String>(5, asyncListener, LRUAlgoCacheImpl::new);
+
+			for(int i = 0; i < 1000; i++)
+			{
+				algorithmTested.putElement(Arrays.asList(i), Arrays.asList("Page " + i));
+			}
+		}
+
+		assertThat(asyncNotifications.size(), is(995));
+		assertThat(asyncNotifications.get(994).toString(), is("994=Page 994 (EVICTED)"));
+	}
+
+	//Perform the LRU test on an exclusive LRU level 1 of 2 pages in front of an LRU level 2 of 3 pages, which together behave like LRU of 5 pages,
+	//then an inclusive level 1 in front of MFU, which removes the page it replaces from level 1 as well
+	@Test
+	public void testTwoLevel()
+	{
+		System.out.println("\nTwo level cache test:");
+		TwoLevelAlgoCacheImpl<Integer, String> twoLevelCache = new TwoLevelAlgoCacheImpl<Integer,String>(2, 3, TwoLevelAlgoCacheImpl.Mode.EXCLUSIVE,
+				LRUAlgoCacheImpl::new, LRUAlgoCacheImpl::new, true);
+		algorithmTested = twoLevelCache;
+
+		keysToGetOrPut = initialKeys;
+		valuesToEnter = initialValues;
+		expectedValues = Arrays.asList(null, null, null, null, null, "First", "Second");
+		putElementsInAlgorithm();	//6-7 in level 1, 3-5 in level 2
+
+		keysToGetOrPut = Arrays.asList(3, 10, 11, 6, 7);
+		expectedValues = Arrays.asList("Third", null, null, "Sixth", "Seventh");
+		getElementsInAlgorithm();	//Every page found is promoted, so 6-7 are back in level 1, 3-5 in level 2
+
+		keysToGetOrPut = Arrays.asList(1, 8);
+		valuesToEnter = Arrays.asList("First", "Eighth");
+		expectedValues = Arrays.asList("Fourth", "Fifth");
+		putElementsInAlgorithm();
+
+		keysToGetOrPut = Arrays.asList(1, 3);
+		expectedValues = Arrays.asList("First", "Third");
+		getElementsInAlgorithm();
+
+		assertThat(twoLevelCache.getLevel1Stats().getHits(), is(1L));
+		assertThat(twoLevelCache.getLevel1Stats().getMisses(), is(6L));
+		assertThat(twoLevelCache.getLevel2Stats().getHits(), is(4L));
+		assertThat(twoLevelCache.getStats().getHitRatio(), is(5 / 7.0));
+		assertThat(twoLevelCache.getStats().getSize(), is(5L));
+
+		algorithmTested = new TwoLevelAlgoCacheImpl<Integer,String>(2, 3, TwoLevelAlgoCacheImpl.Mode.INCLUSIVE, LRUAlgoCacheImpl::new, MFUAlgoCacheImpl::new);
+
+		keysToGetOrPut = initialKeys.subList(0, 3);
+		valuesToEnter = initialValues.subList(0, 3);
+		expectedValues = Arrays.asList(null, null, null);
+		putElementsInAlgorithm();	//2-3 in level 1, 1-3 in level 2
+
+		keysToGetOrPut = Arrays.asList(1);
+		expectedValues = Arrays.asList("First");
+		getElementsInAlgorithm();	//1 is promoted, and used twice in level 2
+
+		keysToGetOrPut = Arrays.asList(4);
+		valuesToEnter = Arrays.asList("Fourth");
+		expectedValues = Arrays.asList("First");
+		putElementsInAlgorithm();	//MFU replaces 1, which leaves level 1 as well
+
+		keysToGetOrPut = Arrays.asList(1, 2, 3, 4);
+		expectedValues = Arrays.asList(null, "Second", "Third", "Fourth");
+		getElementsInAlgorithm();
+	}
+
+	//Perform the LRU test through the asynchronous cache, one key per request. The requests wait for an executor which runs
+	//only when told, so they all reach LRU together, and the requests of the same kind are merged into one batch.
+	@Test
+	public void testAsync()
+	{
+		System.out.println("\nAsynchronous LRU test:");
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		AsyncAlgoCache<Integer, String> asyncCache = new AsyncAlgoCache<Integer, String>(new LRUAlgoCacheImpl<Integer,String>(5), tasks::add);
+		List<CompletableFuture<List<String>>> puts = new ArrayList<CompletableFuture<List<String>>>();
+		List<CompletableFuture<List<String>>> gets = new ArrayList<CompletableFuture<List<String>>>();
+		CompletableFuture<Void> remove;
+		List<String> results = new ArrayList<String>();
+
+		for(int i = 0; i < initialKeys.size(); i++)
+		{
+			puts.add(asyncCache.putElement(initialKeys.subList(i, i + 1), initialValues.subList(i, i + 1)));
+		}
+
+		for(Integer key:Arrays.asList(3, 10, 11, 6, 7))
+		{
+			gets.add(asyncCache.getElement(Arrays.asList(key)));
+		}
+
+		remove = asyncCache.removeElement(Arrays.asList(6));
+		assertThat(puts.get(0).isDone(), is(false));
+		assertThat(tasks.size(), is(1));						//A single drain runs all the requests
+
+		tasks.get(0).run();
+		System.out.println(asyncCache);
+
+		for(CompletableFuture<List<String>> put:puts)
+		{
+			results.addAll(put.join());
+		}
+
+		assertThat(results, is(Arrays.asList(null, null, null, null, null, "First", "Second")));
+		results.clear();
+
+		for(CompletableFuture<List<String>> get:gets)
+		{
+			results.addAll(get.join());
+		}
+
+		assertThat(results, is(Arrays.asList("Third", null, null, "Sixth", "Seventh")));
+		assertThat(remove.isDone(), is(true));
+
+		gets.set(0, asyncCache.getElement(Arrays.asList(6, 7)));
+		assertThat(tasks.size(), is(2));
+		tasks.get(1).run();
+		assertThat(gets.get(0).join(), is(Arrays.asList(null, "Seventh")));
+	}
+
+	//Perform a workload of 40 hot pages used twice each between bursts of 80 pages used once, in which Second Chance
+	//keeps the hot pages and LRU does not. The adaptive cache starts with LRU and has to move to Second Chance by itself.
+	@Test
+	public void testAdaptive()
+	{
+		System.out.println("\nAdaptive algorithm test:");
+		AdaptiveAlgoCacheImpl<Integer, String> adaptiveCache = new AdaptiveAlgoCacheImpl<Integer, String>(100, true);
+		List<Integer> key;
+		int position;
+
+		assertThat(adaptiveCache.getCurrentAlgorithm(), is("LRU"));
+
+		for(int i = 0; i < 20000; i++)
+		{
+			position = i % 160;
+			key = Arrays.asList((position < 80) ? position % 40 : 1000 + i);
+
+			if(adaptiveCache.getElement(key).get(0) == null)
+				adaptiveCache.putElement(key, Arrays.asList("Page " + key.get(0)));
+
+			if(i == 10000)
+				adaptiveCache.getStatsAndReset();
+		}
+
+		System.out.println(adaptiveCache.getStats());
+		assertThat(adaptiveCache.getCurrentAlgorithm(), is("SECOND_CHANCE"));
+		assertThat(adaptiveCache.getSwitches(), is(1));
+		assertThat(adaptiveCache.getStats().getHitRatio() > 0.4, is(true));	//LRU alone gets 0.25
+	}
+
+	//Compute the miss ratio curve of a skewed trace in one pass and compare it to LRUAlgoCacheImpl run at a few capacities.
+	//Tracking every page the curve is exact, and tracking at most 500 of the 5000 pages it stays close.
+	@Test
+	public void testMissRatioCurve()
+	{
+		System.out.println("\nMiss ratio curve test:");
+		Random random = new Random(7);
+		int[] trace = new int[100000];
+		MissRatioCurve exactCurve = new MissRatioCurve(2000, 50);
+		MissRatioCurve sampledCurve = new MissRatioCurve(2000, 50, 1.0, 500);
+		LRUAlgoCacheImpl<Integer, Integer> lruCache;
+		List<Integer> key;
+		int hits;
+
+		for(int i = 0; i < trace.length; i++)
+		{
+			trace[i] = (int) (5000 * Math.pow(random.nextDouble(), 3));
+		}
+
+		exactCurve.record(trace, trace.length);
+		sampledCurve.record(trace, trace.length);
+
+		for(int capacity:new int[] {50, 400, 2000})
+		{
+			lruCache = new LRUAlgoCacheImpl<Integer, Integer>(capacity);
+			hits = 0;
+
+			for(int page:trace)
+			{
+				key = Arrays.asList(page);
+
+				if(lruCache.getElement(key).get(0) != null)
+					hits++;
+				else
+					lruCache.putElement(key, key);
+			}
+
+			System.out.println(String.format("capacity %d: LRU %.4f, curve %.4f, sampled curve %.4f", capacity, (double) hits / trace.length,
+					exactCurve.getHitRatio(capacity), sampledCurve.getHitRatio(capacity)));
+			assertEquals((double) hits / trace.length, exactCurve.getHitRatio(capacity), 1e-9);
+			assertEquals((double) hits / trace.length, sampledCurve.getHitRatio(capacity), 0.03);
+		}
+
+		assertThat(sampledCurve.getSampledPages() <= 500, is(true));
+	}
+
+	//Put a page with low priority in a full LRU cache and see it replaced before the least recently used page.
+	//Then scan pages one by one through a prefetching cache, which has to miss only the first three, and get a strided scan in one batch.
+	@Test
+	public void testPrefetching()
+	{
+		System.out.println("\nPrefetching test:");
+		LRUAlgoCacheImpl<Integer, String> lruCache = new LRUAlgoCacheImpl<Integer, String>(4);
+		List<List<Integer>> loads = new ArrayList<>();
+		PrefetchingAlgoCacheImpl<String> prefetchingCache;
+		List<Integer> key;
+
+		lruCache.putElement(Arrays.asList(1, 2, 3), Arrays.asList("First", "Second", "Third"));
+		assertThat(lruCache.putElementWithLowPriority(Arrays.asList(9, 1), Arrays.asList("Ninth", "Other")), is(Arrays.asList(null, null)));
+		System.out.println(lruCache);
+		assertThat(lruCache.putElement(Arrays.asList(4), Arrays.asList("Fourth")), is(Arrays.asList("Ninth")));
+		assertThat(lruCache.getElement(Arrays.asList(1, 9)), is(Arrays.asList("First", null)));
+
+		prefetchingCache = new PrefetchingAlgoCacheImpl<String>(new LRUAlgoCacheImpl<Integer, String>(100, true), keys -> {
+			List<String> values = new ArrayList<>();
+
+			loads.add(keys);
+
+			for(Integer page:keys)
+			{
+				values.add("Page " + page);
+			}
+
+			return values;
+		}, Runnable::run, 8);
+
+		for(int page = 0; page < 100; page++)
+		{
+			key = Arrays.asList(page);
+
+			if(prefetchingCache.getElement(key).get(0) == null)
+				prefetchingCache.putElement(key, Arrays.asList("Page " + page));
+		}
+
+		System.out.println(prefetchingCache.getStats() + ", " + loads.size() + " loads, first " + loads.get(0));
+		assertThat(prefetchingCache.getStats().getMisses(), is(3L));
+		assertThat(loads.get(0), is(Arrays.asList(3, 4, 5, 6, 7, 8, 9, 10)));
+		assertThat(loads.size() < 30, is(true));
+
+		assertThat(prefetchingCache.getElement(Arrays.asList(1000, 1010, 1020)), is(Arrays.asList(null, null, null)));
+		assertThat(prefetchingCache.getElement(Arrays.asList(1030, 1100)), is(Arrays.asList("Page 1030", "Page 1100")));
+	}
+
+	//With many more samples than pages the sampled caches replace the same pages as LRU and MFU.
+	//With 5 samples, on a skewed workload sampled LRU has to come within 0.02 of the hit ratio of LRU.
+	@Test
+	public void testSampled()
+	{
+		System.out.println("\nSampled algorithm test:");
+		SampledAlgoCacheImpl<Integer, String> sampledCache = new SampledAlgoCacheImpl<Integer, String>(4, SampledAlgoCacheImpl.Policy.LRU, 1000, false);
+		IAlgoCache<Integer, Integer> lruCache = new LRUAlgoCacheImpl<Integer, Integer>(1000, true);
+		IAlgoCache<Integer, Integer> sampledLruCache = new SampledAlgoCacheImpl<Integer, Integer>(1000, SampledAlgoCacheImpl.Policy.LRU, 5, true);
+		Random random = new Random(11);
+		List<Integer> key;
+
+		sampledCache.putElement(initialKeys.subList(0, 4), initialValues.subList(0, 4));
+		sampledCache.getElement(Arrays.asList(1));
+		System.out.println(sampledCache);
+		assertThat(sampledCache.putElement(Arrays.asList(5), Arrays.asList("Fifth")), is(Arrays.asList("Second")));
+
+		sampledCache = new SampledAlgoCacheImpl<Integer, String>(4, SampledAlgoCacheImpl.Policy.MFU, 1000, false);
+		sampledCache.putElement(initialKeys.subList(0, 4), initialValues.subList(0, 4));
+		sampledCache.getElement(Arrays.asList(1, 1, 2));
+		System.out.println(sampledCache);
+		assertThat(sampledCache.putElement(Arrays.asList(5), Arrays.asList("Fifth")), is(Arrays.asList("First")));
+
+		for(int i = 0; i < 200000; i++)
+		{
+			key = Arrays.asList((int) (20000 * Math.pow(random.nextDouble(), 3)));
+
+			if(lruCache.getElement(key).get(0) == null)
+				lruCache.putElement(key, key);
+
+			if(sampledLruCache.getElement(key).get(0) == null)
+				sampledLruCache.putElement(key, key);
+		}
+
+		System.out.println("LRU: " + lruCache.getStats() + System.lineSeparator() + "Sampled LRU: " + sampledLruCache.getStats());
+		assertEquals(lruCache.getStats().getHitRatio(), sampledLruCache.getStats().getHitRatio(), 0.02);
+	}
+
+	//A hit is only recorded in a read buffer, and the next put gives it to LRU before it replaces a page, so the page which was hit is kept.
+	//Then 4 threads get and put pages together, and the pages in the cache must still be the ones LRU holds.
+	@Test
+	public void testReadBuffered() throws InterruptedException
+	{
+		System.out.println("\nRead buffered test:");
+		ReadBufferedAlgoCacheImpl<Integer, String> readBufferedCache = new ReadBufferedAlgoCacheImpl<Integer, String>(3, LRUAlgoCacheImpl::new, true);
+		List<Thread> threads = new ArrayList<>();
+		Thread thread;
+		
+		readBufferedCache.putElement(initialKeys.subList(0, 3), initialValues.subList(0, 3));
+		assertThat(readBufferedCache.getElement(Arrays.asList(1)), is(Arrays.asList("First")));
+		assertThat(readBufferedCache.putElement(Arrays.asList(4), Arrays.asList("Fourth")), is(Arrays.asList("Second")));
+		System.out.println(readBufferedCache);
+
+		readBufferedCache = new ReadBufferedAlgoCacheImpl<Integer, String>(100, LRUAlgoCacheImpl::new, true);
+
+		for(int i = 0; i < 4; i++)
+		{
+			final ReadBufferedAlgoCacheImpl<Integer, String> sharedCache = readBufferedCache;
+			final Random random = new Random(i);
+
+			thread = new Thread(() -> {
+				List<Integer> key;
+
+				for(int j = 0; j < 50000; j++)
+				{
+					key = Arrays.asList((int) (1000 * Math.pow(random.nextDouble(), 3)));
+
+					if(sharedCache.getElement(key).get(0) == null)
+						sharedCache.putElement(key, Arrays.asList("Page " + key.get(0)));
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for(Thread worker:threads)
+		{
+			worker.join();
+		}
+
+		System.out.println(readBufferedCache.getStats());
+		assertThat(readBufferedCache.getStats().getSize(), is(100L));
+		assertThat(readBufferedCache.getStats().getHits() + readBufferedCache.getStats().getMisses(), is(200000L));
+		assertThat(readBufferedCache.toString().split("=Page ").length - 1, is(100));
+	}
+
+	//The default constructor keeps at least 64 pages per segment, so a small cache gets a single segment.
+	//Then 4 threads get and put pages in 8 segments together, and every page must still hold its own value.
+	@Test
+	public void testConcurrentThreads() throws InterruptedException
+	{
+		System.out.println("\nConcurrent threads test:");
+		ConcurrentAlgoCacheImpl<Integer, String> concurrentCache = new ConcurrentAlgoCacheImpl<Integer, String>(100, LRUAlgoCacheImpl::new);
+		List<Thread> threads = new ArrayList<>();
+		List<Integer> keysInCache = new ArrayList<>();
+		AtomicInteger wrongValues = new AtomicInteger();
+		Thread thread;
+		
+		assertTrue(concurrentCache.toString().startsWith("ConcurrentAlgoCacheImpl [capacity = 100, segments = 1]"));
+
+		concurrentCache = new ConcurrentAlgoCacheImpl<Integer, String>(800, 8, size -> new LRUAlgoCacheImpl<>(size, true));
+		assertTrue(concurrentCache.toString().startsWith("ConcurrentAlgoCacheImpl [capacity = 800, segments = 8]"));
+
+		for(int i = 0; i < 4; i++)
+		{
+			final ConcurrentAlgoCacheImpl<Integer, String> sharedCache = concurrentCache;
+			final Random random = new Random(i);
+
+			thread = new Thread(() -> {
+				List<Integer> keys = new ArrayList<>();
+				List<String> values;
+
+				for(int j = 0; j < 10000; j++)
+				{
+					keys.clear();
+					keys.add((int) (2000 * Math.pow(random.nextDouble(), 3)));
+					keys.add(random.nextInt(2000));
+					values = sharedCache.getElement(keys);
+
+					for(int k = 0; k < keys.size(); k++)
+					{
+						if(values.get(k) == null)
+							sharedCache.putElement(Arrays.asList(keys.get(k)), Arrays.asList("Page " + keys.get(k)));
+						else if(!values.get(k).equals("Page " + keys.get(k)))
+							wrongValues.incrementAndGet();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for(Thread worker:threads)
+		{
+			worker.join();
+		}
+
+		System.out.println(concurrentCache.getStats());
+		assertThat(wrongValues.get(), is(0));
+		assertThat(concurrentCache.getStats().getSize(), is(800L));
+		assertThat(concurrentCache.getStats().getHits() + concurrentCache.getStats().getMisses(), is(80000L));
+
+		for(int key = 0; key < 2000; key++)
+		{
+			keysInCache.add(key);
+		}
+
+		assertThat(concurrentCache.getElement(keysInCache).stream().filter(value -> value != null).count(), is(800L));
+	}
+
+	//Pages are copied into frames of 8 bytes. The frame of a replaced page goes to the new page after the old page was copied out,
+	//and the frame of a removed page is reused by the next page. Pages are read through read-only views.
+	@Test
+	public void testOffHeap()
+	{
+		System.out.println("\nOff heap test:");
+		OffHeapAlgoCacheImpl<Integer> offHeapCache = new OffHeapAlgoCacheImpl<Integer>(3, 8, LRUAlgoCacheImpl::new);
+		List<ByteBuffer> pages;
+		
+		assertThat(offHeapCache.putElement(Arrays.asList(1, 2, 3), Arrays.asList(page("First"), page("Second"), page("Third"))),
+				is(Arrays.asList((ByteBuffer) null, null, null)));
+		pages = offHeapCache.getElement(Arrays.asList(2, 4));
+		assertThat(pageText(pages.get(0)), is("Second"));
+		assertNull(pages.get(1));
+		assertTrue(pages.get(0).isReadOnly());
+
+		try
+		{
+			pages.get(0).put(0, (byte) 1);
+			fail("A page got from the cache must not be writable");
+		}
+		catch (ReadOnlyBufferException e)
+		{
+		}
+
+		pages = offHeapCache.putElement(Arrays.asList(4), Arrays.asList(page("Fourth")));
+		System.out.println(offHeapCache);
+		assertThat(pageText(pages.get(0)), is("First"));
+		assertTrue(offHeapCache.toString().contains("4=frame 0"));
+		assertThat(pageText(offHeapCache.getElement(Arrays.asList(4)).get(0)), is("Fourth"));
+
+		offHeapCache.removeElement(Arrays.asList(3));
+		assertNull(offHeapCache.getElement(Arrays.asList(3)).get(0));
+		assertNull(offHeapCache.putElement(Arrays.asList(5), Arrays.asList(page("Fifth"))).get(0));
+		System.out.println(offHeapCache);
+		assertTrue(offHeapCache.toString().contains("5=frame 2"));
+		assertThat(pageText(offHeapCache.getElement(Arrays.asList(5)).get(0)), is("Fifth"));
+		assertThat(pageText(offHeapCache.getElement(Arrays.asList(2)).get(0)), is("Second"));
+	}
+
+	private static ByteBuffer page(String text)
+	{
+		return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	//The text of a page, without the zeroes which fill its frame
+	private static String pageText(ByteBuffer page)
+	{
+		byte[] bytes = new byte[page.remaining()];
+
+		page.duplicate().get(bytes);
+
+		return new String(bytes, StandardCharsets.US_ASCII).replace("\0", "");
+	}
+
+	//Read a text and a binary trace in small chunks, with a text number split between two fills of the buffer of 1MB.
+	//Then replay 100 rounds of 10 pages in batches of 64 through LRU of 10 pages: only the first reference to each page misses.
+	@Test
+	public void testTraceReader() throws IOException, InterruptedException
+	{
+		System.out.println("\nTrace reader test:");
+		Path traceFile = Files.createTempFile("pages", ".trace");
+		StringBuilder text = new StringBuilder("1 ");
+		ByteBuffer binary = ByteBuffer.allocate(5 * Integer.BYTES);
+		List<Integer> expectedKeys = new ArrayList<>(Arrays.asList(1));
+		List<SimulationResult> results;
+
+		try
+		{
+			Files.write(traceFile, "12, 7\n\n300 0045\r\n9".getBytes(StandardCharsets.US_ASCII));
+			assertThat(readTrace(traceFile, TraceReader.Format.TEXT), is(Arrays.asList(12, 7, 300, 45, 9)));
+
+			binary.putInt(5).putInt(70000).putInt(-1).putInt(0).putInt(Integer.MAX_VALUE);
+			Files.write(traceFile, binary.array());
+			assertThat(readTrace(traceFile, TraceReader.Format.BINARY), is(Arrays.asList(5, 70000, -1, 0, Integer.MAX_VALUE)));
+
+			for(int key = 1000000; text.length() < (1 << 20) + 100; key++)	//Numbers of 7 digits and a new line, shifted by 2 bytes
+			{
+				text.append(key).append('\n');
+				expectedKeys.add(key);
+			}
+
+			Files.write(traceFile, text.toString().getBytes(StandardCharsets.US_ASCII));
+			assertThat(readTrace(traceFile, TraceReader.Format.TEXT), is(expectedKeys));
+
+			text.setLength(0);
+
+			for(int round = 0; round < 100; round++)
+				for(int page = 0; page < 10; page++)
+				{
+					text.append(page).append('\n');
+				}
+
+			Files.write(traceFile, text.toString().getBytes(StandardCharsets.US_ASCII));
+			results = new TraceSimulator(64).addCache("LRU", 10).run(traceFile, TraceReader.Format.TEXT);
+			System.out.println(results.get(0));
+			assertThat(results.get(0).getAccesses(), is(1000L));
+			assertThat(results.get(0).getHits(), is(990L));
+			assertThat(results.get(0).getEvictions(), is(0L));
+		}
+		finally
+		{
+			Files.deleteIfExists(traceFile);
+		}
+	}
+
+	//Reads all the page numbers of a trace, 3 at a time
+	private static List<Integer> readTrace(Path traceFile, TraceReader.Format format) throws IOException
+	{
+		List<Integer> keys = new ArrayList<>();
+		int[] chunk = new int[3];
+		int count;
+
+		try (TraceReader reader = new TraceReader(traceFile, format))
+		{
+			while((count = reader.read(chunk)) > 0)
+			{
+				for(int i = 0; i < count; i++)
+				{
+					keys.add(chunk[i]);
+				}
+			}
+		}
+
+		return keys;
+	}
+
+	//Perform the LRU, Second Chance, Clock and MFU tests again through the array methods, with arrays longer than the keys given,
+	//and then remove two pages, whose places are taken by the next pages without replacing any
+	@Test
+	public void testArrays()
+	{
+		System.out.println("\nArrays test:");
+		Integer[] secondPutKeys = {1, 2, 8, 9, 10, 5, 4};
+		String[] secondPutValues = {"First","Second","Eighth","Ninth","Tenth","Fifth","Fourth"};
+		String[] secondChanceReplaced = {"Fourth","Fifth","Third","First","Second","Sixth","Seventh"};
+		
+		testArrays(new LRUAlgoCacheImpl<Integer,String>(5), new Integer[] {3, 10, 11, 6, 7}, new String[] {"Third", null, null, "Sixth", "Seventh"},
+				new Integer[] {5, 4, 1, 2, 8, 9, 10}, new String[] {"Fifth","Fourth","First","Second","Eighth","Ninth","Tenth"},
+				new String[] {null,null,"Third","Sixth","Seventh","Fifth","Fourth"});
+		testArrays(new SecondChanceAlgoCacheImpl<Integer,String>(5), new Integer[] {3, 10, 11, 6, 7}, new String[] {"Third", null, null, "Sixth", "Seventh"},
+				secondPutKeys, secondPutValues, secondChanceReplaced);
+		testArrays(new ClockAlgoCacheImpl<Integer,String>(5), new Integer[] {3, 10, 11, 6, 7}, new String[] {"Third", null, null, "Sixth", "Seventh"},
+				secondPutKeys, secondPutValues, secondChanceReplaced);
+		testArrays(new MFUAlgoCacheImpl<Integer,String>(5), new Integer[] {3, 10, 11, 5, 4}, new String[] {"Third", null, null, "Fifth", "Fourth"},
+				new Integer[] {5, 4, 4, 1, 2, 8, 9}, new String[] {"Fifth","Fourth","Fourth","First","Second","Eighth","Ninth"},
+				new String[] {null, null, null,"Fourth","Fifth","Third","Sixth"});
+	}
+	
+	/*
+	 * Puts the initial pages, gets and puts the given ones, then removes the last two pages put
+	 * and checks that two new pages take their places without replacing any
+	 */
+	private void testArrays(IAlgoCache<Integer, String> cache, Integer[] getKeys, String[] expectedGet,
+			Integer[] putKeys, String[] putValues, String[] expectedPut)
+	{
+		String[] values = new String[10];
+		Integer[] lastKeys;
+		
+		Arrays.fill(values, "Unchanged");
+		cache.putElement(initialKeys.toArray(new Integer[10]), initialValues.toArray(new String[10]), initialKeys.size(), values);
+		assertThat(Arrays.asList(values), is(Arrays.asList(null, null, null, null, null, "First", "Second", "Unchanged", "Unchanged", "Unchanged")));
+		
+		cache.getElement(Arrays.copyOf(getKeys, 10), getKeys.length, values);
+		assertThat(Arrays.asList(values).subList(0, getKeys.length), is(Arrays.asList(expectedGet)));
+		
+		cache.putElement(Arrays.copyOf(putKeys, 10), Arrays.copyOf(putValues, 10), putKeys.length, values);
+		assertThat(Arrays.asList(values).subList(0, putKeys.length), is(Arrays.asList(expectedPut)));
+		System.out.println(cache);
+		
+		lastKeys = Arrays.copyOfRange(putKeys, putKeys.length - 2, 10);
+		cache.removeElement(lastKeys, 2);
+		cache.getElement(lastKeys, 2, values);
+		assertThat(Arrays.asList(values).subList(0, 2), is(Arrays.asList((String) null, null)));
+		
+		cache.putElement(new Integer[] {20, 21}, new String[] {"Twentieth", "Twenty first"}, 2, values);
+		assertThat(Arrays.asList(values).subList(0, 2), is(Arrays.asList((String) null, null)));
+		System.out.println(cache);
+	}
 }
@@ -0,0 +1,272 @@
+package com.hit.algorithm.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import com.hit.algorithm.ARCAlgoCacheImpl;
+import com.hit.algorithm.ClockAlgoCacheImpl;
+import com.hit.algorithm.IAlgoCache;
+import com.hit.algorithm.LRUAlgoCacheImpl;
+import com.hit.algorithm.MFUAlgoCacheImpl;
+import com.hit.algorithm.SecondChanceAlgoCacheImpl;
+import com.hit.algorithm.WTinyLFUAlgoCacheImpl;
+
+/*
+ * Throughput, latency and allocation benchmark for the cache algorithms.
+ *
+ * For every combination of algorithm, capacity, batch size, target hit ratio and key distribution, the cache is
+ * filled and warmed up with the same access stream, and then getElement, putElement and removeElement are each
+ * measured for a fixed time. The report has one line per operation with:
+ * - the hit ratio the stream actually reached (the key space is capacity / target hit ratio pages),
+ * - operations (keys) per second,
+ * - median and 99th percentile latency per key, measured over loops of about 1024 keys,
+ * - bytes allocated per key, from the thread allocation counter of the JVM.
+ * The clock is read once per loop rather than around every call, so its own cost is not counted in the operations.
+ * The results of the operations are folded into a sink which is printed at the end, so the JIT cannot drop the calls.
+ *
+ * Run it from the test classes, for example:
+ * java -Xmx8g -cp bin com.hit.algorithm.benchmark.AlgoCacheBenchmark algorithms=LRU,MFU capacities=10,1000,100000,10000000
+ *     batches=1,64 hitRatios=0.5,0.9 distributions=UNIFORM,ZIPFIAN,SEQUENTIAL,LOOPING seconds=2
+ */
+public class AlgoCacheBenchmark
+{
+	private static final Map<String, IntFunction<IAlgoCache<Integer, Integer>>> ALGORITHMS = new LinkedHashMap<>();
+	private static final int LATENCY_SAMPLES = 1 << 16;
+	private static final int KEYS_PER_LOOP = 1024;
+
+	static
+	{
+		ALGORITHMS.put("LRU", LRUAlgoCacheImpl::new);
+		ALGORITHMS.put("SECOND_CHANCE", SecondChanceAlgoCacheImpl::new);
+		ALGORITHMS.put("MFU", MFUAlgoCacheImpl::new);
+		ALGORITHMS.put("CLOCK", ClockAlgoCacheImpl::new);
+		ALGORITHMS.put("W_TINYLFU", WTinyLFUAlgoCacheImpl::new);
+		ALGORITHMS.put("ARC", ARCAlgoCacheImpl::new);
+	}
+
+	//Returns something computed from the result of the call, to be added to the sink
+	private interface Operation
+	{
+		long perform(IAlgoCache<Integer, Integer> cache, List<Integer> batch);
+	}
+
+	private final List<String> algorithms;
+	private final int[] capacities;
+	private final int[] batchSizes;
+	private final double[] hitRatios;
+	private final List<KeyDistribution> distributions;
+	private final long measureNanos;
+	private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private long sink;
+
+	public AlgoCacheBenchmark(Map<String, String> options)
+	{
+		algorithms = Arrays.asList(options.getOrDefault("algorithms", "LRU,SECOND_CHANCE,MFU").split(","));
+		capacities = parseInts(options.getOrDefault("capacities", "10,1000,100000"));
+		batchSizes = parseInts(options.getOrDefault("batches", "1,64"));
+		hitRatios = Arrays.stream(options.getOrDefault("hitRatios", "0.5,0.9").split(",")).mapToDouble(Double::parseDouble).toArray();
+		distributions = new ArrayList<>();
+		measureNanos = (long) (Double.parseDouble(options.getOrDefault("seconds", "1")) * 1e9);
+
+		for(String distribution:options.getOrDefault("distributions", "UNIFORM,ZIPFIAN,SEQUENTIAL,LOOPING").split(","))
+		{
+			distributions.add(KeyDistribution.valueOf(distribution.trim().toUpperCase()));
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		Map<String, String> options = new LinkedHashMap<>();
+
+		for(String arg:args)
+		{
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		new AlgoCacheBenchmark(options).run();
+	}
+
+	public void run()
+	{
+		System.out.println(String.format("%-14s %10s %-11s %6s %6s %9s  %-7s %14s %10s %10s %10s",
+				"algorithm", "capacity", "keys", "batch", "target", "hitRatio", "op", "ops/sec", "p50 ns/op", "p99 ns/op", "B/op"));
+
+		for(String algorithm:algorithms)
+			for(int capacity:capacities)
+				for(KeyDistribution distribution:distributions)
+					for(double hitRatio:hitRatios)
+						for(int batchSize:batchSizes)
+						{
+							runCase(algorithm.trim().toUpperCase(), capacity, distribution, hitRatio, batchSize);
+						}
+
+		System.out.println("sink " + sink);
+	}
+
+	private void runCase(String algorithm, int capacity, KeyDistribution distribution, double hitRatio, int batchSize)
+	{
+		int keySpace = (int) Math.max(capacity + 1, Math.min(Integer.MAX_VALUE, capacity / hitRatio));
+		int streamLength = Math.max(1 << 20, Math.min(capacity * 4, 1 << 24));
+		List<List<Integer>> batches = toBatches(distribution.generate(streamLength, keySpace, new Random(42)), batchSize);
+		IAlgoCache<Integer, Integer> cache = ALGORITHMS.get(algorithm).apply(capacity);
+		long[] lookups = new long[2];
+		String prefix = String.format("%-14s %10d %-11s %6d %6.2f", algorithm, capacity, distribution, batchSize, hitRatio);
+
+		//Warm up: fill the cache and let the JIT compile the paths with the same stream
+		readThrough(cache, batches, System.nanoTime() + measureNanos, lookups);
+		lookups[0] = lookups[1] = 0;
+		readThrough(cache, batches, System.nanoTime() + measureNanos / 2, lookups);
+
+		report(prefix, lookups, "get", measure(cache, batches, (c, batch) -> checksum(c.getElement(batch)), false));
+		report(prefix, lookups, "put", measure(cache, batches, (c, batch) -> checksum(c.putElement(batch, batch)), false));
+		report(prefix, lookups, "remove", measure(cache, batches, (c, batch) ->
+		{
+			c.removeElement(batch);
+			return batch.size();
+		}, true));
+	}
+
+	//Depends on every value, so none of them can be skipped
+	private static long checksum(List<Integer> values)
+	{
+		long checksum = values.size();
+
+		for(Integer value:values)
+		{
+			if(value != null)
+				checksum += value;
+		}
+
+		return checksum;
+	}
+
+	//Gets every batch and puts the keys which missed, counting lookups and hits
+	private void readThrough(IAlgoCache<Integer, Integer> cache, List<List<Integer>> batches, long deadline, long[] lookups)
+	{
+		List<Integer> missing = new ArrayList<>();
+		List<Integer> values;
+
+		for(int i = 0; System.nanoTime() < deadline; i = (i + 1) % batches.size())
+		{
+			values = cache.getElement(batches.get(i));
+			missing.clear();
+
+			for(int j = 0; j < values.size(); j++)
+			{
+				if(values.get(j) == null)
+					missing.add(batches.get(i).get(j));
+			}
+
+			lookups[0] += values.size();
+			lookups[1] += values.size() - missing.size();
+			sink += checksum(cache.putElement(missing, missing));
+		}
+	}
+
+	/*
+	 * Runs an operation over the batches until the measurement time is over.
+	 * The batches are run in loops of about 1024 keys, and only the loops are timed.
+	 * With refill set the batches of a loop are put back after it (untimed), so removals keep finding a full cache.
+	 * Returns:
+	 * keys processed, elapsed nanoseconds, bytes allocated, followed by the sampled per key latencies of the loops
+	 */
+	private long[] measure(IAlgoCache<Integer, Integer> cache, List<List<Integer>> batches, Operation operation, boolean refill)
+	{
+		long threadId = Thread.currentThread().getId();
+		long[] latencies = new long[LATENCY_SAMPLES];
+		long keys = 0, elapsed = 0, loops = 0, loopKeys;
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		long allocatedByRefill = 0, refillStart, start, end;
+		int batchesPerLoop = Math.max(1, KEYS_PER_LOOP / batches.get(0).size());
+		long[] result;
+		int i = 0, first;
+
+		while(elapsed < measureNanos)
+		{
+			first = i;
+			loopKeys = 0;
+			start = System.nanoTime();
+
+			for(int j = 0; j < batchesPerLoop; j++)
+			{
+				sink += operation.perform(cache, batches.get(i));
+				loopKeys += batches.get(i).size();
+				i = (i + 1) % batches.size();
+			}
+
+			end = System.nanoTime();
+
+			elapsed += end - start;
+			keys += loopKeys;
+			latencies[(int) (loops++ % LATENCY_SAMPLES)] = (end - start) / loopKeys;
+
+			if(refill)
+			{
+				refillStart = threads.getThreadAllocatedBytes(threadId);
+
+				for(int j = first; j != i; j = (j + 1) % batches.size())
+				{
+					sink += checksum(cache.putElement(batches.get(j), batches.get(j)));
+				}
+
+				allocatedByRefill += threads.getThreadAllocatedBytes(threadId) - refillStart;
+			}
+		}
+
+		result = new long[3 + (int) Math.min(loops, LATENCY_SAMPLES)];
+		result[0] = keys;
+		result[1] = elapsed;
+		result[2] = threads.getThreadAllocatedBytes(threadId) - allocatedBefore - allocatedByRefill;
+		System.arraycopy(latencies, 0, result, 3, result.length - 3);
+
+		return result;
+	}
+
+	private void report(String prefix, long[] lookups, String operationName, long[] measurement)
+	{
+		long[] latencies = Arrays.copyOfRange(measurement, 3, measurement.length);
+
+		Arrays.sort(latencies);
+
+		System.out.println(String.format("%s %9.3f  %-7s %14.0f %10d %10d %10.1f",
+				prefix,
+				lookups[0] == 0 ? 0.0 : (double) lookups[1] / lookups[0],
+				operationName,
+				measurement[0] / (measurement[1] / 1e9),
+				latencies[latencies.length / 2],
+				latencies[Math.min(latencies.length - 1, (int) (latencies.length * 0.99))],
+				(double) measurement[2] / measurement[0]));
+	}
+
+	//Cuts the key stream into batches, prepared ahead so building the lists is not measured
+	private static List<List<Integer>> toBatches(int[] keys, int batchSize)
+	{
+		List<List<Integer>> batches = new ArrayList<>(keys.length / batchSize + 1);
+		Integer[] batch;
+
+		for(int start = 0; start < keys.length; start += batchSize)
+		{
+			batch = new Integer[Math.min(batchSize, keys.length - start)];
+
+			for(int i = 0; i < batch.length; i++)
+			{
+				batch[i] = keys[start + i];
+			}
+
+			batches.add(Arrays.asList(batch));
+		}
+
+		return batches;
+	}
+
+	private static int[] parseInts(String values)
+	{
+		return Arrays.stream(values.split(",")).mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+	}
+}
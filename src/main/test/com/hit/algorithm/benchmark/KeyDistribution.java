@@ -0,0 +1,116 @@
+package com.hit.algorithm.benchmark;
+
+import java.util.Random;
+
+/*
+ * Access patterns used by the benchmark. Each one fills an array with page numbers taken from a key space
+ * of the given size, ahead of the measurement so generating keys is not part of the measured time.
+ */
+public enum KeyDistribution
+{
+	//Every page of the key space is equally likely
+	UNIFORM
+	{
+		@Override
+		public int[] generate(int count, int keySpace, Random random)
+		{
+			int[] keys = new int[count];
+
+			for(int i = 0; i < count; i++)
+			{
+				keys[i] = random.nextInt(keySpace);
+			}
+
+			return keys;
+		}
+	},
+
+	//A few pages get most of the accesses (Zipf with exponent 0.99, as in YCSB), hot pages scattered over the key space
+	ZIPFIAN
+	{
+		@Override
+		public int[] generate(int count, int keySpace, Random random)
+		{
+			double theta = 0.99;
+			double zetaN = zeta(keySpace, theta);
+			double alpha = 1.0 / (1.0 - theta);
+			double eta = (1 - Math.pow(2.0 / keySpace, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+			int[] keys = new int[count];
+			double u, uz;
+			long rank;
+
+			for(int i = 0; i < count; i++)
+			{
+				u = random.nextDouble();
+				uz = u * zetaN;
+
+				if(uz < 1.0)
+					rank = 0;
+				else if(uz < 1.0 + Math.pow(0.5, theta))
+					rank = 1;
+				else
+					rank = (long) (keySpace * Math.pow(eta * u - eta + 1, alpha));
+
+				keys[i] = scatter(Math.min(rank, keySpace - 1), keySpace);
+			}
+
+			return keys;
+		}
+	},
+
+	//An endless scan which never returns to a page
+	SEQUENTIAL
+	{
+		@Override
+		public int[] generate(int count, int keySpace, Random random)
+		{
+			int[] keys = new int[count];
+
+			for(int i = 0; i < count; i++)
+			{
+				keys[i] = i;
+			}
+
+			return keys;
+		}
+	},
+
+	//Scans the key space over and over
+	LOOPING
+	{
+		@Override
+		public int[] generate(int count, int keySpace, Random random)
+		{
+			int[] keys = new int[count];
+
+			for(int i = 0; i < count; i++)
+			{
+				keys[i] = i % keySpace;
+			}
+
+			return keys;
+		}
+	};
+
+	public abstract int[] generate(int count, int keySpace, Random random);
+
+	private static double zeta(long n, double theta)
+	{
+		double sum = 0;
+
+		for(long i = 1; i <= n; i++)
+		{
+			sum += 1 / Math.pow(i, theta);
+		}
+
+		return sum;
+	}
+
+	//Maps a popularity rank to a page number, so the hottest pages are not neighbours
+	private static int scatter(long rank, int keySpace)
+	{
+		long hash = rank * 0x9E3779B97F4A7C15L;
+
+		return (int) Math.floorMod(hash ^ (hash >>> 32), (long) keySpace);
+	}
+}